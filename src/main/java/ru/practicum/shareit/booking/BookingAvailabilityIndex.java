@@ -0,0 +1,194 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingPeriod;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntPredicate;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookingAvailabilityIndex {
+
+    private final BookingRepository repository;
+
+    private final Map<Long, Intervals> intervals = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded;
+
+    public boolean isAvailable(long itemId, LocalDateTime from, LocalDateTime to) {
+        load();
+        Intervals itemIntervals = intervals.get(itemId);
+        return itemIntervals == null || !itemIntervals.overlaps(from, to);
+    }
+
+    public void add(Booking booking) {
+        afterCommit(() -> add(booking.getId(), booking.getItem().getId(), booking.getStart(), booking.getEnd()));
+    }
+
+    // a rejected or canceled booking no longer blocks its window
+    public void remove(Booking booking) {
+        afterCommit(() -> remove(booking.getId(), booking.getItem().getId()));
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.availability-prune-delay:600000}")
+    public void prune() {
+        prune(LocalDateTime.now());
+    }
+
+    // ended bookings are dropped just like the load skips them, and items left without bookings lose their entry
+    int prune(LocalDateTime now) {
+        int[] pruned = new int[1];
+        for (Long itemId : intervals.keySet()) {
+            intervals.computeIfPresent(itemId, (id, current) -> {
+                Intervals kept = current.retain(i -> current.ends[i].isAfter(now));
+                pruned[0] += current.ids.length - kept.ids.length;
+                return kept.ids.length == 0 ? null : kept;
+            });
+        }
+        if (pruned[0] > 0) {
+            log.debug("Pruned {} ended bookings from the availability index", pruned[0]);
+        }
+        return pruned[0];
+    }
+
+    // approvals that commit while the index is loading are merged in; adding the same booking twice is a no-op
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            List<BookingPeriod> periods = repository.findPeriodsByStatusAndEndAfter(BookingStatus.APPROVED,
+                    LocalDateTime.now());
+            periods.forEach(period -> add(period.getId(), period.getItemId(), period.getStart(), period.getEnd()));
+            loaded = true;
+            log.info("Loaded {} approved bookings into the availability index", periods.size());
+        }
+    }
+
+    private void add(long bookingId, long itemId, LocalDateTime start, LocalDateTime end) {
+        intervals.compute(itemId, (id, current) -> current == null
+                ? new Intervals(new long[]{bookingId}, new LocalDateTime[]{start}, new LocalDateTime[]{end},
+                new LocalDateTime[]{end})
+                : current.with(bookingId, start, end));
+    }
+
+    private void remove(long bookingId, long itemId) {
+        intervals.computeIfPresent(itemId, (id, current) -> {
+            Intervals kept = current.retain(i -> current.ids[i] != bookingId);
+            return kept.ids.length == 0 ? null : kept;
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // copy-on-write arrays sorted by start, so reads never lock; maxEnds[i] is the latest end among the first i + 1
+    private static class Intervals {
+
+        private final long[] ids;
+
+        private final LocalDateTime[] starts;
+
+        private final LocalDateTime[] ends;
+
+        private final LocalDateTime[] maxEnds;
+
+        private Intervals(long[] ids, LocalDateTime[] starts, LocalDateTime[] ends, LocalDateTime[] maxEnds) {
+            this.ids = ids;
+            this.starts = starts;
+            this.ends = ends;
+            this.maxEnds = maxEnds;
+        }
+
+        private boolean overlaps(LocalDateTime from, LocalDateTime to) {
+            int low = 0;
+            int high = starts.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid].isBefore(to)) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return high >= 0 && maxEnds[high].isAfter(from);
+        }
+
+        private Intervals with(long bookingId, LocalDateTime start, LocalDateTime end) {
+            for (long id : ids) {
+                if (id == bookingId) {
+                    return this;
+                }
+            }
+            int position = 0;
+            while (position < starts.length && !starts[position].isAfter(start)) {
+                position++;
+            }
+
+            int size = ids.length + 1;
+            long[] newIds = Arrays.copyOf(ids, size);
+            LocalDateTime[] newStarts = Arrays.copyOf(starts, size);
+            LocalDateTime[] newEnds = Arrays.copyOf(ends, size);
+            System.arraycopy(ids, position, newIds, position + 1, ids.length - position);
+            System.arraycopy(starts, position, newStarts, position + 1, starts.length - position);
+            System.arraycopy(ends, position, newEnds, position + 1, ends.length - position);
+            newIds[position] = bookingId;
+            newStarts[position] = start;
+            newEnds[position] = end;
+            return of(newIds, newStarts, newEnds);
+        }
+
+        private Intervals retain(IntPredicate keep) {
+            int size = 0;
+            long[] newIds = new long[ids.length];
+            LocalDateTime[] newStarts = new LocalDateTime[ids.length];
+            LocalDateTime[] newEnds = new LocalDateTime[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                if (keep.test(i)) {
+                    newIds[size] = ids[i];
+                    newStarts[size] = starts[i];
+                    newEnds[size] = ends[i];
+                    size++;
+                }
+            }
+            if (size == ids.length) {
+                return this;
+            }
+            return of(Arrays.copyOf(newIds, size), Arrays.copyOf(newStarts, size), Arrays.copyOf(newEnds, size));
+        }
+
+        private static Intervals of(long[] ids, LocalDateTime[] starts, LocalDateTime[] ends) {
+            LocalDateTime[] maxEnds = new LocalDateTime[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                maxEnds[i] = i == 0 || ends[i].isAfter(maxEnds[i - 1]) ? ends[i] : maxEnds[i - 1];
+            }
+            return new Intervals(ids, starts, ends, maxEnds);
+        }
+    }
+}
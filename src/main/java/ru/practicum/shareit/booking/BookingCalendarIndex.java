@@ -0,0 +1,140 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@RequiredArgsConstructor
+public class BookingCalendarIndex {
+
+    public static final int HOURS_PER_DAY = 24;
+
+    private final BookingRepository repository;
+
+    private final Map<Long, ItemCalendar> calendars = new ConcurrentHashMap<>();
+
+    private long missedMarks;
+
+    // bit (day - 1) * 24 + hour is set when an approved booking covers any part of that hour
+    public BitSet getMonth(long itemId, YearMonth month) {
+        return getCalendar(itemId).getMonth(month);
+    }
+
+    public void add(Booking booking) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            mark(booking);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                mark(booking);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.calendar-prune-delay:3600000}")
+    public void prune() {
+        prune(LocalDateTime.now());
+    }
+
+    // the calendars only keep hours from the start of the current day, whole past months are dropped
+    void prune(LocalDateTime now) {
+        LocalDateTime since = now.truncatedTo(ChronoUnit.DAYS);
+        calendars.values().forEach(calendar -> calendar.dropBefore(since));
+    }
+
+    // calendars that are not loaded yet will read the committed booking when they are
+    private void mark(Booking booking) {
+        ItemCalendar calendar;
+        synchronized (calendars) {
+            calendar = calendars.get(booking.getItem().getId());
+            if (calendar == null) {
+                missedMarks++;
+            }
+        }
+        if (calendar != null) {
+            calendar.mark(booking.getStart(), booking.getEnd());
+        }
+    }
+
+    // loaded outside the map so a slow query only delays its own item; a load that raced a booking committed to an
+    // unloaded calendar is discarded, since its query may have run before that commit
+    private ItemCalendar getCalendar(long itemId) {
+        ItemCalendar calendar = calendars.get(itemId);
+        while (calendar == null) {
+            long seen;
+            synchronized (calendars) {
+                seen = missedMarks;
+            }
+            ItemCalendar loaded = new ItemCalendar(LocalDateTime.now().truncatedTo(ChronoUnit.DAYS));
+            repository.findPeriodsByItemIdAndStatus(itemId, BookingStatus.APPROVED)
+                    .forEach(period -> loaded.mark(period.getStart(), period.getEnd()));
+            synchronized (calendars) {
+                if (missedMarks == seen) {
+                    calendars.putIfAbsent(itemId, loaded);
+                }
+                calendar = calendars.get(itemId);
+            }
+        }
+        return calendar;
+    }
+
+    private static class ItemCalendar {
+
+        private final Map<YearMonth, BitSet> months = new HashMap<>();
+
+        private LocalDateTime since;
+
+        private ItemCalendar(LocalDateTime since) {
+            this.since = since;
+        }
+
+        private synchronized BitSet getMonth(YearMonth month) {
+            BitSet hours = months.get(month);
+            return hours == null ? new BitSet() : (BitSet) hours.clone();
+        }
+
+        private synchronized void mark(LocalDateTime start, LocalDateTime end) {
+            LocalDateTime from = start.isBefore(since) ? since : start.truncatedTo(ChronoUnit.HOURS);
+            while (from.isBefore(end)) {
+                YearMonth month = YearMonth.from(from);
+                LocalDateTime monthEnd = month.plusMonths(1).atDay(1).atStartOfDay();
+                LocalDateTime to = end.isBefore(monthEnd) ? end : monthEnd;
+                months.computeIfAbsent(month, m -> new BitSet(m.lengthOfMonth() * HOURS_PER_DAY))
+                        .set(hourOfMonth(from), hourOfMonth(to.minusNanos(1)) + 1);
+                from = to;
+            }
+        }
+
+        private synchronized void dropBefore(LocalDateTime time) {
+            if (!time.isAfter(since)) {
+                return;
+            }
+            since = time;
+            YearMonth month = YearMonth.from(time);
+            months.keySet().removeIf(past -> past.isBefore(month));
+            BitSet hours = months.get(month);
+            if (hours != null) {
+                hours.clear(0, hourOfMonth(time));
+            }
+        }
+
+        private static int hourOfMonth(LocalDateTime time) {
+            return (time.getDayOfMonth() - 1) * HOURS_PER_DAY + time.getHour();
+        }
+    }
+}
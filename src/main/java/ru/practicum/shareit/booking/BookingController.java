@@ -1,17 +1,32 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResult;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.idempotency.IdempotencyStore;
 import ru.practicum.shareit.intf.Create;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.constraints.Min;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
+import static ru.practicum.shareit.idempotency.IdempotencyStore.IDEMPOTENCY_KEY;
 import static ru.practicum.shareit.item.ItemController.USER_ID;
 
 @RestController
@@ -20,14 +35,37 @@ import static ru.practicum.shareit.item.ItemController.USER_ID;
 @Slf4j
 public class BookingController {
 
+    public static final String NEXT_CURSOR = "X-Next-Cursor";
+    public static final String EXPAND_ITEM = "item";
+    public static final String NDJSON = "application/x-ndjson";
     private final BookingService bookingService;
+    private final ObjectMapper objectMapper;
+    private final IdempotencyStore idempotencyStore;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public BookingDto createBooking(@RequestHeader(USER_ID) long userId,
+                                    @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
                                     @RequestBody @Validated(Create.class) BookingRequestDto bookingDto) {
         log.info("Received request to save new booking for user with ID: {}", userId);
-        return BookingMapper.mapToBookingDto(bookingService.createBooking(userId, bookingDto));
+        return idempotencyStore.execute("bookings", userId, idempotencyKey, bookingDto, BookingDto.class,
+                () -> BookingMapper.mapToBookingDto(bookingService.createBooking(userId, bookingDto)));
+    }
+
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.OK)
+    public List<BookingBatchResult> createBookings(@RequestHeader(USER_ID) long userId,
+                                                   @RequestBody List<BookingRequestDto> bookingDtos) {
+        log.info("Received request to save {} bookings for user with ID: {}", bookingDtos.size(), userId);
+        return bookingService.createBookings(userId, bookingDtos);
+    }
+
+    @PatchMapping("/approval")
+    @ResponseStatus(HttpStatus.OK)
+    public List<BookingBatchResult> setBookingApprovals(@RequestHeader(USER_ID) long userId,
+                                                        @RequestBody List<BookingApprovalDto> approvals) {
+        log.info("Received request to update status of {} bookings for user with ID: {}", approvals.size(), userId);
+        return bookingService.setBookingApprovals(userId, approvals);
     }
 
     @PatchMapping("/{bookingId}")
@@ -41,9 +79,11 @@ public class BookingController {
 
     @GetMapping("/{bookingId}")
     @ResponseStatus(HttpStatus.OK)
-    public BookingDto getBookingByIdAndBookerOrOwner(@PathVariable long bookingId, @RequestHeader(USER_ID) long userId) {
+    public BookingDto getBookingByIdAndBookerOrOwner(@PathVariable long bookingId, @RequestHeader(USER_ID) long userId,
+                                                     @RequestParam(value = "expand", required = false) String expand) {
         log.info("Received request to get booking by ID {} for user with ID: {}", bookingId, userId);
-        return BookingMapper.mapToBookingDto(bookingService.getBookingByIdAndBookerOrOwner(bookingId, userId));
+        return BookingMapper.mapToBookingDto(bookingService.getBookingByIdAndBookerOrOwner(bookingId, userId),
+                isItemExpanded(expand));
     }
 
     @GetMapping("/owner")
@@ -54,9 +94,47 @@ public class BookingController {
                                                           @Min(0) @RequestParam(value = "from", defaultValue = "0")
                                                           int from,
                                                           @Min(1) @RequestParam(value = "size", defaultValue = "20")
-                                                          int size) {
+                                                          int size,
+                                                          @RequestParam(value = "cursor", required = false)
+                                                          String cursor,
+                                                          @RequestParam(value = "expand", required = false)
+                                                          String expand,
+                                                          HttpServletResponse response) {
         log.info("Received request to get bookings by owner with ID: {} and state: {}", userId, state);
-        return BookingMapper.mapToBookingDtoList(bookingService.findBookingsByStateAndOwnerId(userId, state, from, size));
+        if (cursor != null) {
+            return mapToBookingDtoPage(bookingService.findBookingsByStateAndOwnerId(userId, state, cursor, size),
+                    isItemExpanded(expand), response);
+        }
+        return BookingMapper.mapToBookingDtoList(bookingService.findBookingsByStateAndOwnerId(userId, state, from, size),
+                isItemExpanded(expand));
+    }
+
+    @GetMapping("/owner/summary")
+    @ResponseStatus(HttpStatus.OK)
+    public BookingSummaryDto getBookingSummaryByOwnerId(@RequestHeader(USER_ID) long userId) {
+        log.info("Received request to get booking summary by owner with ID: {}", userId);
+        return bookingService.getBookingSummaryByOwnerId(userId);
+    }
+
+    @GetMapping(value = "/owner/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportBookingsByOwnerId(@RequestHeader(USER_ID) long userId) {
+        log.info("Received request to export bookings by owner with ID: {}", userId);
+        StreamingResponseBody body = out -> bookingService.exportBookingsByOwnerId(userId, booking -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(BookingMapper.mapToBookingDto(booking)));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    @GetMapping("/summary")
+    @ResponseStatus(HttpStatus.OK)
+    public BookingSummaryDto getBookingSummaryByBookerId(@RequestHeader(USER_ID) long userId) {
+        log.info("Received request to get booking summary by booker with ID: {}", userId);
+        return bookingService.getBookingSummaryByBookerId(userId);
     }
 
     @GetMapping
@@ -67,9 +145,38 @@ public class BookingController {
                                                            @Min(0) @RequestParam(value = "from", defaultValue = "0")
                                                            int from,
                                                            @Min(1) @RequestParam(value = "size", defaultValue = "20")
-                                                           int size) {
+                                                           int size,
+                                                           @RequestParam(value = "cursor", required = false)
+                                                           String cursor,
+                                                           @RequestParam(value = "expand", required = false)
+                                                           String expand,
+                                                           HttpServletResponse response) {
         log.info("Received request to get bookings by booker with ID: {} and state: {}", userId, state);
-        return BookingMapper.mapToBookingDtoList(bookingService.findBookingsByStateAndBookerId(userId, state, from, size));
+        if (cursor != null) {
+            return mapToBookingDtoPage(bookingService.findBookingsByStateAndBookerId(userId, state, cursor, size),
+                    isItemExpanded(expand), response);
+        }
+        return BookingMapper.mapToBookingDtoList(bookingService.findBookingsByStateAndBookerId(userId, state, from, size),
+                isItemExpanded(expand));
+    }
+
+    private List<BookingDto> mapToBookingDtoPage(Slice<Booking> bookings, boolean expandItem,
+                                                 HttpServletResponse response) {
+        List<Booking> content = bookings.getContent();
+        if (bookings.hasNext()) {
+            response.setHeader(NEXT_CURSOR, BookingCursor.encode(content.get(content.size() - 1)));
+        }
+        return BookingMapper.mapToBookingDtoList(content, expandItem);
+    }
+
+    private boolean isItemExpanded(String expand) {
+        if (expand == null) {
+            return false;
+        }
+        if (!EXPAND_ITEM.equals(expand)) {
+            throw new ValidationException("Unknown expand: " + expand);
+        }
+        return true;
     }
 }
 
@@ -0,0 +1,136 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingPeriod;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BookingExpiryService {
+
+    private static final Duration TICK = Duration.ofSeconds(1);
+    private static final int FLUSH_SIZE = 500;
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(5);
+
+    private final BookingRepository repository;
+    private final BookingIntervalIndex intervalIndex;
+    private final BookingAvailabilityIndex availabilityIndex;
+
+    private final BookingTimingWheel wheel = new BookingTimingWheel(TICK, LocalDateTime.now());
+
+    private boolean loaded;
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.expiry-tick-delay:1000}")
+    @Transactional
+    public void expire() {
+        expire(LocalDateTime.now());
+    }
+
+    public int expire(LocalDateTime now) {
+        if (!isLoaded()) {
+            List<BookingPeriod> waiting = repository.findPeriodsByStatus(BookingStatus.WAITING);
+            synchronized (wheel) {
+                waiting.forEach(period -> wheel.add(period.getId(), period.getStart()));
+                loaded = true;
+            }
+            log.info("Tracking expiry of {} waiting bookings", waiting.size());
+        }
+
+        List<Long> expired;
+        synchronized (wheel) {
+            expired = wheel.advance(now);
+        }
+        if (expired.isEmpty()) {
+            return 0;
+        }
+
+        // the ids have left the wheel already, so they are put back if the cancellation does not commit
+        LocalDateTime retryAt = now.plus(RETRY_DELAY);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        retry(expired, retryAt);
+                    }
+                }
+            });
+            return cancel(expired);
+        }
+        try {
+            return cancel(expired);
+        } catch (RuntimeException e) {
+            retry(expired, retryAt);
+            throw e;
+        }
+    }
+
+    public void schedule(Booking booking) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(booking);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(booking);
+            }
+        });
+    }
+
+    int pending() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    private boolean isLoaded() {
+        synchronized (wheel) {
+            return loaded;
+        }
+    }
+
+    private int cancel(List<Long> expired) {
+        int canceled = 0;
+        for (int from = 0; from < expired.size(); from += FLUSH_SIZE) {
+            List<Long> ids = expired.subList(from, Math.min(from + FLUSH_SIZE, expired.size()));
+            if (repository.updateStatusByIdInAndStatus(ids, BookingStatus.WAITING, BookingStatus.CANCELED) > 0) {
+                List<Booking> bookings = repository.findBookingsByIdInAndStatus(ids, BookingStatus.CANCELED);
+                bookings.forEach(booking -> {
+                    intervalIndex.release(booking);
+                    availabilityIndex.remove(booking);
+                });
+                canceled += bookings.size();
+            }
+        }
+        if (canceled > 0) {
+            log.info("Canceled {} waiting bookings that were not approved before their start", canceled);
+        }
+        return canceled;
+    }
+
+    private void retry(List<Long> ids, LocalDateTime retryAt) {
+        log.warn("Failed to cancel {} expired waiting bookings, retrying at {}", ids.size(), retryAt);
+        synchronized (wheel) {
+            ids.forEach(id -> wheel.add(id, retryAt));
+        }
+    }
+
+    private void add(Booking booking) {
+        synchronized (wheel) {
+            wheel.add(booking.getId(), booking.getStart());
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.exceptions.ConflictException;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@RequiredArgsConstructor
+public class BookingIntervalIndex {
+
+    private static final Set<BookingStatus> ACTIVE_STATUSES = EnumSet.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+
+    private static final long UNSAVED_ID = 0;
+
+    private final BookingRepository repository;
+
+    private final Map<Long, BookingIntervalTree> trees = new ConcurrentHashMap<>();
+
+    private long missedRemovals;
+
+    public boolean isAvailable(long itemId, LocalDateTime start, LocalDateTime end) {
+        BookingIntervalTree tree = getTree(itemId);
+        synchronized (tree) {
+            return !tree.overlaps(start, end);
+        }
+    }
+
+    // reserves a booking that is not inserted yet, so a conflicting row never reaches the database;
+    // the entry is keyed by the unsaved id until inserted re-keys it
+    public void reserve(Booking booking) {
+        BookingIntervalTree tree = getTree(booking.getItem().getId());
+        synchronized (tree) {
+            tree.removeEndedBy(LocalDateTime.now());
+            if (tree.overlaps(booking.getStart(), booking.getEnd())) {
+                throw new ConflictException("Item with ID " + booking.getItem().getId()
+                        + " is already booked between " + booking.getStart() + " and " + booking.getEnd());
+            }
+            tree.add(booking.getId(), booking.getStart(), booking.getEnd());
+        }
+        // a rollback removes the key reserved here, and the inserted id the entry may have moved to since
+        long itemId = booking.getItem().getId();
+        long reservedId = booking.getId();
+        LocalDateTime start = booking.getStart();
+        afterCompletion(false, () -> remove(itemId, start, reservedId, booking.getId()));
+    }
+
+    public void inserted(Booking booking) {
+        BookingIntervalTree tree = getTree(booking.getItem().getId());
+        synchronized (tree) {
+            tree.remove(UNSAVED_ID, booking.getStart());
+            tree.add(booking.getId(), booking.getStart(), booking.getEnd());
+        }
+    }
+
+    public void release(Booking booking) {
+        afterCompletion(true, () -> remove(booking.getItem().getId(), booking.getStart(), booking.getId()));
+    }
+
+    private void afterCompletion(boolean committed, Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (committed) {
+                action.run();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if ((status == STATUS_COMMITTED) == committed) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private void remove(long itemId, LocalDateTime start, long... bookingIds) {
+        BookingIntervalTree tree;
+        synchronized (trees) {
+            tree = trees.get(itemId);
+            if (tree == null) {
+                missedRemovals++;
+            }
+        }
+        if (tree != null) {
+            synchronized (tree) {
+                for (long bookingId : bookingIds) {
+                    tree.remove(bookingId, start);
+                }
+            }
+        }
+    }
+
+    // loaded outside the map so a slow query only delays its own item; a load that raced a removal from an unloaded
+    // tree is discarded, since it may still contain the removed booking
+    private BookingIntervalTree getTree(long itemId) {
+        BookingIntervalTree tree = trees.get(itemId);
+        while (tree == null) {
+            long seen;
+            synchronized (trees) {
+                seen = missedRemovals;
+            }
+            BookingIntervalTree loaded = new BookingIntervalTree();
+            repository.findBookingsByItemIdAndStatusInAndEndAfter(itemId, ACTIVE_STATUSES, LocalDateTime.now())
+                    .forEach(booking -> loaded.add(booking.getId(), booking.getStart(), booking.getEnd()));
+            synchronized (trees) {
+                if (missedRemovals == seen) {
+                    trees.putIfAbsent(itemId, loaded);
+                }
+                tree = trees.get(itemId);
+            }
+        }
+        return tree;
+    }
+}
@@ -0,0 +1,57 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+@Component
+public class BookingItemLocks {
+
+    private static final int STRIPES = 256;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    public BookingItemLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public <T> T withItemLock(long itemId, Supplier<T> action) {
+        ReentrantLock lock = locks[stripe(itemId)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // stripes are always taken in ascending order, so two callers locking overlapping items cannot deadlock
+    public <T> T withItemLocks(Collection<Long> itemIds, Supplier<T> action) {
+        TreeSet<Integer> stripes = new TreeSet<>();
+        itemIds.forEach(itemId -> stripes.add(stripe(itemId)));
+        Deque<ReentrantLock> locked = new ArrayDeque<>();
+        try {
+            for (int stripe : stripes) {
+                locks[stripe].lock();
+                locked.push(locks[stripe]);
+            }
+            return action.get();
+        } finally {
+            while (!locked.isEmpty()) {
+                locked.pop().unlock();
+            }
+        }
+    }
+
+    int stripe(long itemId) {
+        long hash = itemId * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 56) & (STRIPES - 1);
+    }
+}
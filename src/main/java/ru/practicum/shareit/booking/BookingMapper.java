@@ -3,9 +3,11 @@ package ru.practicum.shareit.booking;
 import org.mapstruct.Mapper;
 import org.springframework.stereotype.Component;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingItemSummary;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.UserMapper;
 
 import java.util.List;
@@ -16,6 +18,10 @@ import java.util.stream.Collectors;
 public class BookingMapper {
 
     public static BookingDto mapToBookingDto(Booking booking) {
+        return mapToBookingDto(booking, false);
+    }
+
+    public static BookingDto mapToBookingDto(Booking booking, boolean expandItem) {
         if (booking == null) {
             return null;
         }
@@ -25,11 +31,25 @@ public class BookingMapper {
         bookingDto.setStart(booking.getStart());
         bookingDto.setEnd(booking.getEnd());
         bookingDto.setBooker(UserMapper.mapToUserDto(booking.getBooker()));
-        bookingDto.setItem(ItemMapper.mapToItemDto(booking.getItem()));
+        bookingDto.setItem(mapToBookingItemSummary(booking.getItem()));
+        if (expandItem) {
+            bookingDto.setItemDetails(ItemMapper.mapToItemDtoWithoutComments(booking.getItem()));
+        }
         bookingDto.setStatus(booking.getStatus());
         return bookingDto;
     }
 
+    public static BookingItemSummary mapToBookingItemSummary(Item item) {
+        if (item == null) {
+            return null;
+        }
+
+        return BookingItemSummary.builder()
+                .id(item.getId())
+                .name(item.getName())
+                .build();
+    }
+
     public static BookingRequestDto mapToBookingRequestDto(BookingDto bookingDto) {
         if (bookingDto == null) {
             return null;
@@ -45,9 +65,28 @@ public class BookingMapper {
         return bookingRequestDto;
     }
 
+    public static BookingRequestDto mapToBookingRequestDto(Booking booking) {
+        if (booking == null) {
+            return null;
+        }
+
+        BookingRequestDto bookingRequestDto = new BookingRequestDto();
+        bookingRequestDto.setId(booking.getId());
+        bookingRequestDto.setStart(booking.getStart());
+        bookingRequestDto.setEnd(booking.getEnd());
+        bookingRequestDto.setItemId(booking.getItem().getId());
+        bookingRequestDto.setBookerId(booking.getBooker().getId());
+        bookingRequestDto.setStatus(booking.getStatus());
+        return bookingRequestDto;
+    }
+
     public static List<BookingDto> mapToBookingDtoList(List<Booking> bookings) {
+        return mapToBookingDtoList(bookings, false);
+    }
+
+    public static List<BookingDto> mapToBookingDtoList(List<Booking> bookings, boolean expandItem) {
         return bookings.stream()
-                .map(BookingMapper::mapToBookingDto)
+                .map(booking -> mapToBookingDto(booking, expandItem))
                 .collect(Collectors.toList());
     }
 }
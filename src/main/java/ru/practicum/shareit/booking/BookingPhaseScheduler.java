@@ -0,0 +1,133 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingPeriod;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingPhase;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookingPhaseScheduler {
+
+    static final Duration HORIZON = Duration.ofHours(1);
+
+    private static final Set<BookingPhase> NOT_STARTED = EnumSet.of(BookingPhase.FUTURE);
+    private static final Set<BookingPhase> NOT_ENDED = EnumSet.of(BookingPhase.FUTURE, BookingPhase.CURRENT);
+
+    private final BookingRepository repository;
+
+    private final PriorityQueue<Transition> transitions = new PriorityQueue<>(Comparator.comparing(Transition::getAt));
+
+    private LocalDateTime loadedUntil;
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.phase-tick-delay:1000}")
+    @Transactional
+    public void tick() {
+        tick(LocalDateTime.now());
+    }
+
+    public void tick(LocalDateTime now) {
+        boolean reload;
+        synchronized (transitions) {
+            reload = loadedUntil == null || !now.isBefore(loadedUntil);
+        }
+        if (reload) {
+            reload(now);
+        }
+
+        List<Long> started = new ArrayList<>();
+        List<Long> ended = new ArrayList<>();
+        synchronized (transitions) {
+            while (!transitions.isEmpty() && !transitions.peek().getAt().isAfter(now)) {
+                Transition transition = transitions.poll();
+                (transition.getPhase() == BookingPhase.CURRENT ? started : ended).add(transition.getBookingId());
+            }
+        }
+        if (!started.isEmpty()) {
+            repository.updatePhaseByIdIn(started, NOT_STARTED, BookingPhase.CURRENT);
+        }
+        if (!ended.isEmpty()) {
+            repository.updatePhaseByIdIn(ended, NOT_ENDED, BookingPhase.PAST);
+        }
+    }
+
+    public void schedule(Booking booking) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(booking.getId(), booking.getStart(), booking.getEnd());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(booking.getId(), booking.getStart(), booking.getEnd());
+            }
+        });
+    }
+
+    int pending() {
+        synchronized (transitions) {
+            return transitions.size();
+        }
+    }
+
+    // catches up on transitions missed while the application was down, then queues the ones due within the horizon
+    private void reload(LocalDateTime now) {
+        LocalDateTime until = now.plus(HORIZON);
+        // the horizon moves before the query, so a booking committed in between is queued by add if the query misses it
+        synchronized (transitions) {
+            loadedUntil = until;
+        }
+        int started = repository.updatePhaseByStartNotAfter(now, NOT_STARTED, BookingPhase.CURRENT);
+        int ended = repository.updatePhaseByEndNotAfter(now, NOT_ENDED, BookingPhase.PAST);
+        List<BookingPeriod> periods = repository.findPhaseTransitionsBefore(until, BookingPhase.FUTURE,
+                BookingPhase.CURRENT);
+        log.debug("Caught up {} started and {} ended bookings, {} bookings change phase before {}", started, ended,
+                periods.size(), until);
+        synchronized (transitions) {
+            periods.forEach(period -> add(period.getId(), period.getStart(), period.getEnd()));
+        }
+    }
+
+    private void add(long bookingId, LocalDateTime start, LocalDateTime end) {
+        synchronized (transitions) {
+            if (loadedUntil == null) {
+                return;
+            }
+            if (start.isBefore(loadedUntil)) {
+                transitions.add(new Transition(start, bookingId, BookingPhase.CURRENT));
+            }
+            if (end.isBefore(loadedUntil)) {
+                transitions.add(new Transition(end, bookingId, BookingPhase.PAST));
+            }
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Transition {
+
+        private final LocalDateTime at;
+
+        private final long bookingId;
+
+        private final BookingPhase phase;
+    }
+}
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.model.Booking;
+
+public interface BookingQueryRepository {
+
+    Slice<Booking> findSlice(Specification<Booking> specification, Sort sort, int offset, int limit);
+}
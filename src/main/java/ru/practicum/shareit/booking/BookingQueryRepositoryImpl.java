@@ -0,0 +1,49 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.model.Booking;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+public class BookingQueryRepositoryImpl implements BookingQueryRepository {
+
+    private static final String LOAD_GRAPH = "javax.persistence.loadgraph";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<Booking> findSlice(Specification<Booking> specification, Sort sort, int offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Booking> query = cb.createQuery(Booking.class);
+        Root<Booking> root = query.from(Booking.class);
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(toOrders(sort, root, cb));
+
+        List<Booking> bookings = entityManager.createQuery(query)
+                .setHint(LOAD_GRAPH, entityManager.getEntityGraph(Booking.ITEM_AND_BOOKER_GRAPH))
+                .setFirstResult(offset)
+                .setMaxResults(limit + 1)
+                .getResultList();
+        boolean hasNext = bookings.size() > limit;
+        if (hasNext) {
+            bookings = bookings.subList(0, limit);
+        }
+        return new SliceImpl<>(bookings, Pageable.unpaged(), hasNext);
+    }
+}
@@ -3,19 +3,43 @@ package ru.practicum.shareit.booking;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.dto.BookingCreateSnapshot;
+import ru.practicum.shareit.booking.dto.BookingPeriod;
+import ru.practicum.shareit.booking.dto.BookingStateCount;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingPhase;
 import ru.practicum.shareit.booking.model.BookingStatus;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface BookingRepository extends JpaRepository<Booking, Long> {
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingQueryRepository,
+        BookingBatchRepository {
+
+    int EXPORT_FETCH_SIZE = 500;
+
+    @EntityGraph(Booking.ITEM_AND_BOOKER_GRAPH)
     Page<Booking> findBookingsByItemOwner(long ownerId, Pageable pageable);
 
     boolean existsBookingsByBookerIdOrItemOwner(long bookerId, long ownerId);
 
+    @EntityGraph(Booking.ITEM_AND_BOOKER_GRAPH)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE))
+    Stream<Booking> streamBookingsByItemOwnerOrderByStartDescIdDesc(long ownerId);
+
+    @EntityGraph(Booking.ITEM_AND_BOOKER_GRAPH)
     List<Booking> findBookingsByBookerIdOrItemOwner(long bookerId, long ownerId, Sort sort);
 
     boolean existsByItemIdAndBookerIdAndStatusAndEndBefore(Long itemId, Long bookerId, BookingStatus status,
@@ -27,20 +51,93 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     Booking findFirstBookingByItemIdAndStatusAndStartIsAfter(long itemId, BookingStatus bookingStatus,
                                                              LocalDateTime now, Sort start);
 
-    List<Booking> findBookingsByBookerIdAndStatus(long userId, BookingStatus bookingStatus, Sort start);
-
-    List<Booking> findBookingsByItemOwnerAndStatus(long userId, BookingStatus bookingStatus, Sort start);
-
-    List<Booking> findBookingsByItemOwnerAndStartBeforeAndEndAfter(long userId, LocalDateTime now, LocalDateTime now1);
-
-    List<Booking> findBookingsByBookerIdAndStartBeforeAndEndAfter(long userId, LocalDateTime now, LocalDateTime now1);
-
-    List<Booking> findBookingsByItemOwnerAndEndBeforeOrderByEndDesc(long userId, LocalDateTime now);
-
-    List<Booking> findBookingsByBookerIdAndEndBeforeOrderByEndDesc(long userId, LocalDateTime now);
-
+    @EntityGraph(Booking.ITEM_AND_BOOKER_GRAPH)
     Page<Booking> findBookingsByBookerId(long userId, Pageable pageable);
 
+    @EntityGraph(Booking.ITEM_AND_BOOKER_GRAPH)
+    List<Booking> findBookingsByIdIn(Collection<Long> ids);
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingStateCount(b.phase, b.status, COUNT(b)) "
+            + "FROM Booking b WHERE b.booker.id = :bookerId GROUP BY b.phase, b.status")
+    List<BookingStateCount> countStatesByBookerId(@Param("bookerId") long bookerId);
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingStateCount(b.phase, b.status, COUNT(b)) "
+            + "FROM Booking b WHERE b.item.owner = :ownerId GROUP BY b.phase, b.status")
+    List<BookingStateCount> countStatesByItemOwner(@Param("ownerId") long ownerId);
+
+    @Query("SELECT b.item.id FROM Booking b WHERE b.id = :bookingId")
+    Optional<Long> findItemIdById(@Param("bookingId") long bookingId);
+
+    @Query("SELECT DISTINCT b.item.id FROM Booking b WHERE b.id IN :bookingIds")
+    List<Long> findItemIdsByIdIn(@Param("bookingIds") Collection<Long> bookingIds);
+
+    @Query("SELECT b.id FROM Booking b WHERE b.id IN :ids AND b.status = :status")
+    List<Long> findIdsByIdInAndStatus(@Param("ids") Collection<Long> ids, @Param("status") BookingStatus status);
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingPeriod(b.id, b.item.id, b.start, b.end) FROM Booking b "
+            + "WHERE (b.phase = :future AND b.start < :until) OR (b.phase = :current AND b.end < :until)")
+    List<BookingPeriod> findPhaseTransitionsBefore(@Param("until") LocalDateTime until,
+                                                   @Param("future") BookingPhase future,
+                                                   @Param("current") BookingPhase current);
+
+    @Modifying
+    @Query("UPDATE Booking b SET b.phase = :phase WHERE b.id IN :ids AND b.phase IN :previous")
+    int updatePhaseByIdIn(@Param("ids") Collection<Long> ids, @Param("previous") Collection<BookingPhase> previous,
+                          @Param("phase") BookingPhase phase);
+
+    @Modifying
+    @Query("UPDATE Booking b SET b.phase = :phase WHERE b.phase IN :previous AND b.start <= :now")
+    int updatePhaseByStartNotAfter(@Param("now") LocalDateTime now,
+                                   @Param("previous") Collection<BookingPhase> previous,
+                                   @Param("phase") BookingPhase phase);
+
+    @Modifying
+    @Query("UPDATE Booking b SET b.phase = :phase WHERE b.phase IN :previous AND b.end <= :now")
+    int updatePhaseByEndNotAfter(@Param("now") LocalDateTime now, @Param("previous") Collection<BookingPhase> previous,
+                                 @Param("phase") BookingPhase phase);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = :status, b.version = b.version + 1 "
+            + "WHERE b.id IN :ids AND b.status = :previous")
+    int updateStatusByIdInAndStatus(@Param("ids") Collection<Long> ids, @Param("previous") BookingStatus previous,
+                                    @Param("status") BookingStatus status);
+
+    @EntityGraph(Booking.ITEM_AND_BOOKER_GRAPH)
+    List<Booking> findBookingsByIdInAndStatus(Collection<Long> ids, BookingStatus status);
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingPeriod(b.id, b.item.id, b.start, b.end) FROM Booking b "
+            + "WHERE b.status = :status")
+    List<BookingPeriod> findPeriodsByStatus(@Param("status") BookingStatus status);
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingPeriod(b.id, b.item.id, b.start, b.end) FROM Booking b "
+            + "WHERE b.status = :status AND b.end > :now")
+    List<BookingPeriod> findPeriodsByStatusAndEndAfter(@Param("status") BookingStatus status,
+                                                       @Param("now") LocalDateTime now);
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingPeriod(b.id, b.item.id, b.start, b.end) FROM Booking b "
+            + "WHERE b.item.id = :itemId AND b.status = :status")
+    List<BookingPeriod> findPeriodsByItemIdAndStatus(@Param("itemId") long itemId,
+                                                     @Param("status") BookingStatus status);
+
+    @EntityGraph(Booking.ITEM_AND_BOOKER_GRAPH)
+    List<Booking> findBookingsByItemIdAndStatusInAndEndAfter(long itemId, Collection<BookingStatus> statuses,
+                                                             LocalDateTime now);
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingCreateSnapshot(i.id, i.available, i.owner) "
+            + "FROM User u LEFT JOIN Item i ON i.id = :itemId WHERE u.id = :userId")
+    Optional<BookingCreateSnapshot> findBookingCreateSnapshot(@Param("userId") long userId,
+                                                              @Param("itemId") long itemId);
+
+    @Query("SELECT b FROM Booking b JOIN FETCH b.item i JOIN FETCH b.booker "
+            + "WHERE i.id IN :itemIds AND b.status = :status AND ("
+            + "b.start = (SELECT MAX(l.start) FROM Booking l "
+            + "WHERE l.item.id = i.id AND l.status = :status AND l.start < :now) "
+            + "OR b.start = (SELECT MIN(n.start) FROM Booking n "
+            + "WHERE n.item.id = i.id AND n.status = :status AND n.start > :now))")
+    List<Booking> findLastAndNextBookingsByItemIds(@Param("itemIds") Collection<Long> itemIds,
+                                                   @Param("status") BookingStatus status,
+                                                   @Param("now") LocalDateTime now);
+
 }
 
 
@@ -1,16 +1,25 @@
 package ru.practicum.shareit.booking;
 
+import org.springframework.data.domain.Slice;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResult;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.booking.model.Booking;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookingService {
 
     Booking setBookingApproval(long userId, long bookingId, boolean approved);
 
+    List<BookingBatchResult> setBookingApprovals(long userId, List<BookingApprovalDto> approvals);
+
     Booking createBooking(long userId, BookingRequestDto bookingDto);
 
+    List<BookingBatchResult> createBookings(long userId, List<BookingRequestDto> bookingDtos);
+
     Booking getBookingByIdAndBookerOrOwner(long bookingId, long userId);
 
     Booking getBookingById(long bookingId);
@@ -21,17 +30,19 @@ public interface BookingService {
 
     List<Booking> findBookingsByBookerIdOrItemOwner(long bookerId, long ownerId);
 
-    List<Booking> findBookingsByBookerIdAndStatusWaiting(long userId);
+    List<Booking> findBookingsByStateAndOwnerId(long userId, String state, int from, int size);
 
-    List<Booking> findBookingsByItemOwnerAndStatusWaiting(long userId);
+    List<Booking> findBookingsByStateAndBookerId(long userId, String state, int from, int size);
 
-    List<Booking> findBookingsByItemOwnerAndStatusRejected(long userId);
+    List<Booking> findBookingsByItemOwner(long userId, int from, int size);
 
-    List<Booking> findBookingsByBookerIdAndStatusRejected(long userId);
+    Slice<Booking> findBookingsByStateAndOwnerId(long userId, String state, String cursor, int size);
 
-    List<Booking> findBookingsByStateAndOwnerId(long userId, String state, int from, int size);
+    Slice<Booking> findBookingsByStateAndBookerId(long userId, String state, String cursor, int size);
 
-    List<Booking> findBookingsByStateAndBookerId(long userId, String state, int from, int size);
+    BookingSummaryDto getBookingSummaryByOwnerId(long userId);
 
-    List<Booking> findBookingsByItemOwner(long userId, int from, int size);
+    void exportBookingsByOwnerId(long userId, Consumer<Booking> consumer);
+
+    BookingSummaryDto getBookingSummaryByBookerId(long userId);
 }
@@ -2,22 +2,54 @@ package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResult;
+import ru.practicum.shareit.booking.dto.BookingCreateSnapshot;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.dto.BookingStateCount;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingPhase;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.exceptions.ConflictException;
 import ru.practicum.shareit.exceptions.ResourceNotFoundException;
 import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.item.ItemBookingPointers;
 import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional(readOnly = true)
@@ -25,13 +57,47 @@ import java.util.List;
 @Slf4j
 public class BookingServiceImpl implements BookingService {
 
+    private static final Sort BOOKING_ORDER = Sort.by(Sort.Direction.DESC, "start", "id");
+    private static final int BATCH_CHUNK_SIZE = 100;
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int MAX_APPROVAL_ATTEMPTS = 3;
+
     private final BookingRepository repository;
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final BookingIntervalIndex intervalIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final BookingItemLocks itemLocks;
+    private final ItemBookingPointers itemBookingPointers;
+    private final BookingPhaseScheduler phaseScheduler;
+    private final BookingExpiryService expiryService;
+    private final BookingAvailabilityIndex availabilityIndex;
+    private final BookingCalendarIndex calendarIndex;
+    private final BookingSummaryCache summaryCache;
+    private final EntityManager entityManager;
 
     @Override
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Booking setBookingApproval(long userId, long bookingId, boolean approved) {
+        // look up in a short transaction so no connection is held while waiting for the item lock
+        long itemId = transactionTemplate.execute(status -> repository.findItemIdById(bookingId)).orElseThrow(()
+                -> new ResourceNotFoundException("Booking with ID " + bookingId + " is not found."));
+
+        return itemLocks.withItemLock(itemId, () -> {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return transactionTemplate.execute(status -> applyBookingApproval(userId, bookingId, approved));
+                } catch (OptimisticLockingFailureException e) {
+                    if (attempt == MAX_APPROVAL_ATTEMPTS) {
+                        throw new ConflictException("Booking with ID " + bookingId + " was modified concurrently.");
+                    }
+                    log.debug("Retrying approval of booking with ID {} after a concurrent update", bookingId);
+                }
+            }
+        });
+    }
+
+    private Booking applyBookingApproval(long userId, long bookingId, boolean approved) {
         Booking booking = repository.findById(bookingId).orElseThrow(()
                 -> new ResourceNotFoundException("Booking with ID " + bookingId + " is not found."));
 
@@ -43,18 +109,247 @@ public class BookingServiceImpl implements BookingService {
             throw new ValidationException("Booking with ID " + bookingId + " has already been approved.");
         }
 
+        if (booking.getStatus() == BookingStatus.CANCELED) {
+            throw new ValidationException("Booking with ID " + bookingId + " has been canceled.");
+        }
+
+        // the slot of a rejected booking has been released and may be taken by another booking by now
+        if (booking.getStatus() == BookingStatus.REJECTED) {
+            throw new ValidationException("Booking with ID " + bookingId + " has been rejected.");
+        }
+
         if (approved) {
             booking.setStatus(BookingStatus.APPROVED);
         } else {
             booking.setStatus(BookingStatus.REJECTED);
+            intervalIndex.release(booking);
+            availabilityIndex.remove(booking);
         }
 
+        repository.saveAndFlush(booking);
+        if (approved) {
+            itemBookingPointers.refresh(List.of(booking.getItem()), LocalDateTime.now());
+            availabilityIndex.add(booking);
+            calendarIndex.add(booking);
+        }
         return booking;
     }
 
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BookingBatchResult> setBookingApprovals(long userId, List<BookingApprovalDto> approvals) {
+        if (approvals.size() > MAX_BATCH_SIZE) {
+            throw new ValidationException("Batch cannot contain more than " + MAX_BATCH_SIZE + " approvals");
+        }
+
+        Set<Long> bookingIds = approvals.stream()
+                .map(BookingApprovalDto::getBookingId)
+                .collect(Collectors.toSet());
+        // same locking as a single approval: look up the items first, then lock them all for the whole update
+        List<Long> itemIds = transactionTemplate.execute(status -> repository.findItemIdsByIdIn(bookingIds));
+        return itemLocks.withItemLocks(itemIds, () -> transactionTemplate.execute(status
+                -> applyBookingApprovals(userId, approvals, bookingIds)));
+    }
+
+    private List<BookingBatchResult> applyBookingApprovals(long userId, List<BookingApprovalDto> approvals,
+                                                           Set<Long> bookingIds) {
+        Map<Long, Booking> bookings = repository.findBookingsByIdIn(bookingIds).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+
+        BookingBatchResult[] results = new BookingBatchResult[approvals.size()];
+        Map<Integer, Booking> pending = new LinkedHashMap<>();
+        Map<BookingStatus, Map<BookingStatus, List<Long>>> changes = new EnumMap<>(BookingStatus.class);
+        Set<Long> listed = new HashSet<>();
+        for (int i = 0; i < approvals.size(); i++) {
+            BookingApprovalDto approval = approvals.get(i);
+            Booking booking = bookings.get(approval.getBookingId());
+            try {
+                if (booking == null || booking.getItem().getOwner() != userId) {
+                    throw new ResourceNotFoundException("Booking with ID " + approval.getBookingId()
+                            + " is not found for owner with ID " + userId);
+                }
+                if (!listed.add(booking.getId())) {
+                    throw new ValidationException("Booking with ID " + booking.getId() + " is listed more than once.");
+                }
+                if (booking.getStatus() == BookingStatus.APPROVED) {
+                    throw new ValidationException("Booking with ID " + booking.getId() + " has already been approved.");
+                }
+                if (booking.getStatus() == BookingStatus.CANCELED) {
+                    throw new ValidationException("Booking with ID " + booking.getId() + " has been canceled.");
+                }
+                if (booking.getStatus() == BookingStatus.REJECTED) {
+                    throw new ValidationException("Booking with ID " + booking.getId() + " has been rejected.");
+                }
+                BookingStatus status = approval.isApproved() ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+                changes.computeIfAbsent(status, s -> new EnumMap<>(BookingStatus.class))
+                        .computeIfAbsent(booking.getStatus(), s -> new ArrayList<>())
+                        .add(booking.getId());
+                pending.put(i, booking);
+            } catch (ValidationException | ResourceNotFoundException e) {
+                results[i] = mapToFailedResult(e);
+            }
+        }
+
+        // the update only applies to rows still in the status that was checked, e.g. not canceled by expiry meanwhile
+        Set<Long> stale = new HashSet<>();
+        changes.forEach((status, byPrevious) -> byPrevious.forEach((previous, ids) -> {
+            if (repository.updateStatusByIdInAndStatus(ids, previous, status) < ids.size()) {
+                Set<Long> updated = new HashSet<>(repository.findIdsByIdInAndStatus(ids, status));
+                ids.stream().filter(id -> !updated.contains(id)).forEach(stale::add);
+            }
+        }));
+        pending.entrySet().removeIf(entry -> {
+            if (!stale.contains(entry.getValue().getId())) {
+                return false;
+            }
+            results[entry.getKey()] = mapToFailedResult(new ConflictException("Booking with ID "
+                    + entry.getValue().getId() + " was modified concurrently."));
+            return true;
+        });
+        if (pending.keySet().stream().anyMatch(i -> approvals.get(i).isApproved())) {
+            // the items are loaded with their bookings already, so only their pointers are looked up
+            itemBookingPointers.refresh(new ArrayList<>(pending.entrySet().stream()
+                    .filter(entry -> approvals.get(entry.getKey()).isApproved())
+                    .map(entry -> entry.getValue().getItem())
+                    .collect(Collectors.toMap(Item::getId, Function.identity(), (first, second) -> first))
+                    .values()), LocalDateTime.now());
+        }
+        pending.forEach((i, booking) -> {
+            if (approvals.get(i).isApproved()) {
+                booking.setStatus(BookingStatus.APPROVED);
+                availabilityIndex.add(booking);
+                calendarIndex.add(booking);
+            } else {
+                booking.setStatus(BookingStatus.REJECTED);
+                intervalIndex.release(booking);
+                availabilityIndex.remove(booking);
+            }
+            results[i] = BookingBatchResult.builder()
+                    .status(HttpStatus.OK.value())
+                    .booking(BookingMapper.mapToBookingDto(booking))
+                    .build();
+        });
+        return Arrays.asList(results);
+    }
+
     @Override
     @Transactional
     public Booking createBooking(long userId, BookingRequestDto bookingDto) {
+        validateBookingTimes(bookingDto);
+
+        BookingCreateSnapshot snapshot = repository.findBookingCreateSnapshot(userId, bookingDto.getItemId())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with ID: " + userId));
+        validateBooking(userId, bookingDto, snapshot, LocalDateTime.now());
+
+        Booking booking = new Booking();
+        booking.setStart(stored(bookingDto.getStart()));
+        booking.setEnd(stored(bookingDto.getEnd()));
+        booking.setBooker(userRepository.getReferenceById(userId));
+        booking.setItem(itemRepository.getReferenceById(bookingDto.getItemId()));
+        booking.setStatus(BookingStatus.WAITING);
+        intervalIndex.reserve(booking);
+        repository.save(booking);
+        intervalIndex.inserted(booking);
+        phaseScheduler.schedule(booking);
+        expiryService.schedule(booking);
+        return booking;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BookingBatchResult> createBookings(long userId, List<BookingRequestDto> bookingDtos) {
+        if (bookingDtos.size() > MAX_BATCH_SIZE) {
+            throw new ValidationException("Batch cannot contain more than " + MAX_BATCH_SIZE + " bookings");
+        }
+
+        List<BookingBatchResult> results = new ArrayList<>(bookingDtos.size());
+        for (int from = 0; from < bookingDtos.size(); from += BATCH_CHUNK_SIZE) {
+            List<BookingRequestDto> chunk = bookingDtos.subList(from,
+                    Math.min(from + BATCH_CHUNK_SIZE, bookingDtos.size()));
+            try {
+                results.addAll(transactionTemplate.execute(status -> createBookingChunk(userId, chunk)));
+            } catch (RuntimeException e) {
+                // the chunks before this one are committed already, so their results are kept and only this
+                // chunk's entries are reported as failed
+                log.warn("Failed to create bookings {}..{} of a batch for user with ID: {}", from,
+                        from + chunk.size() - 1, userId, e);
+                chunk.forEach(bookingDto -> results.add(mapToFailedResult(e)));
+            }
+        }
+        return results;
+    }
+
+    private List<BookingBatchResult> createBookingChunk(long userId, List<BookingRequestDto> bookingDtos) {
+        LocalDateTime now = LocalDateTime.now();
+        User booker = userRepository.findById(userId).orElse(null);
+        Map<Long, Item> items = itemRepository.findAllById(bookingDtos.stream()
+                        .map(BookingRequestDto::getItemId)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        BookingBatchResult[] results = new BookingBatchResult[bookingDtos.size()];
+        Map<Integer, Booking> pending = new LinkedHashMap<>();
+        for (int i = 0; i < bookingDtos.size(); i++) {
+            BookingRequestDto bookingDto = bookingDtos.get(i);
+            try {
+                validateBookingTimes(bookingDto);
+                if (booker == null) {
+                    throw new ResourceNotFoundException("User not found with ID: " + userId);
+                }
+                Item item = items.get(bookingDto.getItemId());
+                validateBooking(userId, bookingDto, item == null ? new BookingCreateSnapshot()
+                        : new BookingCreateSnapshot(item.getId(), item.getAvailable(), item.getOwner()), now);
+
+                Booking booking = Booking.builder()
+                        .start(stored(bookingDto.getStart()))
+                        .end(stored(bookingDto.getEnd()))
+                        .item(item)
+                        .booker(booker)
+                        .status(BookingStatus.WAITING)
+                        .phase(BookingPhase.of(bookingDto.getStart(), bookingDto.getEnd(), now))
+                        .build();
+                // reserved before the insert, so an overlap never reaches the database and fails the whole batch
+                intervalIndex.reserve(booking);
+                pending.put(i, booking);
+            } catch (ValidationException | ResourceNotFoundException | ConflictException e) {
+                results[i] = mapToFailedResult(e);
+            }
+        }
+
+        repository.insertAll(new ArrayList<>(pending.values()));
+        pending.forEach((i, booking) -> {
+            intervalIndex.inserted(booking);
+            phaseScheduler.schedule(booking);
+            expiryService.schedule(booking);
+            results[i] = BookingBatchResult.builder()
+                    .status(HttpStatus.CREATED.value())
+                    .booking(BookingMapper.mapToBookingDto(booking))
+                    .build();
+        });
+        return Arrays.asList(results);
+    }
+
+    // timestamps are stored with microseconds, so the indexes key a new booking exactly as it is read back later
+    private static LocalDateTime stored(LocalDateTime time) {
+        return time.truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private BookingBatchResult mapToFailedResult(RuntimeException e) {
+        HttpStatus status = HttpStatus.BAD_REQUEST;
+        if (e instanceof ResourceNotFoundException) {
+            status = HttpStatus.NOT_FOUND;
+        } else if (e instanceof ConflictException) {
+            status = HttpStatus.CONFLICT;
+        } else if (!(e instanceof ValidationException)) {
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+        }
+        return BookingBatchResult.builder()
+                .status(status.value())
+                .error(e.getMessage())
+                .build();
+    }
+
+    private void validateBookingTimes(BookingRequestDto bookingDto) {
         if (bookingDto.getStart() == null) {
             throw new ValidationException("Booking start time cannot be null");
         }
@@ -62,20 +357,19 @@ public class BookingServiceImpl implements BookingService {
         if (bookingDto.getEnd() == null) {
             throw new ValidationException("Booking end time cannot be null");
         }
+    }
 
-        if (!userRepository.existsById(userId)) {
-            throw new ResourceNotFoundException("User not found with ID: " + userId);
-        }
-
-        if (!itemRepository.existsById(bookingDto.getItemId())) {
-            throw new ResourceNotFoundException("Item not found with ID: " + userId);
+    private void validateBooking(long userId, BookingRequestDto bookingDto, BookingCreateSnapshot snapshot,
+                                 LocalDateTime now) {
+        if (snapshot.getItemId() == null) {
+            throw new ResourceNotFoundException("Item not found with ID: " + bookingDto.getItemId());
         }
 
-        if (itemRepository.getById(bookingDto.getItemId()).getAvailable() == false) {
+        if (!Boolean.TRUE.equals(snapshot.getItemAvailable())) {
             throw new ValidationException("The item is not available for booking.");
         }
 
-        if (bookingDto.getStart().isBefore(LocalDateTime.now())) {
+        if (bookingDto.getStart().isBefore(now)) {
             throw new ValidationException("Booking start time cannot be in the past");
         }
 
@@ -87,19 +381,9 @@ public class BookingServiceImpl implements BookingService {
             throw new ValidationException("Booking start time cannot be equal to booking end time");
         }
 
-        long ownerId = itemRepository.getReferenceById(bookingDto.getItemId()).getOwner();
-        if (userId == ownerId) {
+        if (userId == snapshot.getOwnerId()) {
             throw new ResourceNotFoundException("User cannot book own item");
         }
-
-        Booking booking = new Booking();
-        booking.setStart(bookingDto.getStart());
-        booking.setEnd(bookingDto.getEnd());
-        booking.setBooker(userRepository.getReferenceById(userId));
-        booking.setItem(itemRepository.getReferenceById(bookingDto.getItemId()));
-        booking.setStatus(BookingStatus.WAITING);
-        repository.save(booking);
-        return booking;
     }
 
     @Override
@@ -125,88 +409,112 @@ public class BookingServiceImpl implements BookingService {
 
     @Override
     public List<Booking> findBookingsByStateAndOwnerId(long userId, String state, int from, int size) {
+        return findBookingsByState(BookingRole.OWNER, userId, state, from, size);
+    }
+
+    @Override
+    public List<Booking> findBookingsByStateAndBookerId(long userId, String state, int from, int size) {
+        return findBookingsByState(BookingRole.BOOKER, userId, state, from, size);
+    }
+
+    @Override
+    public Slice<Booking> findBookingsByStateAndOwnerId(long userId, String state, String cursor, int size) {
+        return findBookingsByState(BookingRole.OWNER, userId, state, cursor, size);
+    }
+
+    @Override
+    public Slice<Booking> findBookingsByStateAndBookerId(long userId, String state, String cursor, int size) {
+        return findBookingsByState(BookingRole.BOOKER, userId, state, cursor, size);
+    }
+
+    private List<Booking> findBookingsByState(BookingRole role, long userId, String state, int from, int size) {
         if (!existsBookingByBookerIdOrItemOwner(userId, userId)) {
             throw new ResourceNotFoundException("No bookings found for user with ID: " + userId);
         }
 
-        if (state != null) {
-            switch (state) {
-                case "ALL":
-                    log.info("Retrieving all bookings for owner with ID: {}", userId);
-                    return findBookingsByItemOwner(userId, from, size);
-                case "FUTURE":
-                    log.info("Retrieving future bookings for owner with ID: {}", userId);
-                    return findBookingsByItemOwner(userId, from, size);
-                case "WAITING":
-                    log.info("Retrieving waiting bookings for owner with ID: {}", userId);
-                    return findBookingsByItemOwnerAndStatusWaiting(userId);
-                case "REJECTED":
-                    log.info("Retrieving rejected bookings for owner with ID: {}", userId);
-                    return findBookingsByItemOwnerAndStatusRejected(userId);
-                case "CURRENT":
-                    log.info("Retrieving current bookings for owner with ID: {}", userId);
-                    return findCurrentBookingsByOwnerId(userId);
-                case "PAST":
-                    log.info("Retrieving past bookings for owner with ID: {}", userId);
-                    return findPastBookingsByOwnerId(userId);
-                default:
-                    throw new ValidationException("Unknown state: " + state);
-            }
-        } else {
-            log.info("No state specified. Retrieving all bookings for owner with ID: {}", userId);
+        if (state == null) {
+            log.info("No state specified. Retrieving all bookings for {} with ID: {}", role, userId);
             return findBookingsByBookerIdOrItemOwner(userId, userId);
         }
+
+        if (from < 0 || size <= 0) {
+            throw new ValidationException("Некорректные параметры пагинации");
+        }
+
+        BookingState bookingState = BookingState.from(state);
+        log.info("Retrieving {} bookings for {} with ID: {}", bookingState, role, userId);
+        List<Booking> bookings = repository.findSlice(
+                BookingSpecifications.byRoleAndState(role, userId, bookingState),
+                BOOKING_ORDER, from / size * size, size).getContent();
+        if (bookings.isEmpty() && bookingState == BookingState.ALL) {
+            throw new ResourceNotFoundException("Booking not found with " + role + " ID: " + userId);
+        }
+        return bookings;
     }
 
-    public List<Booking> findPastBookingsByOwnerId(long userId) {
-        return repository.findBookingsByItemOwnerAndEndBeforeOrderByEndDesc(userId, LocalDateTime.now());
+    @Override
+    public BookingSummaryDto getBookingSummaryByOwnerId(long userId) {
+        return summaryCache.get(BookingRole.OWNER, userId,
+                () -> mapToSummary(repository.countStatesByItemOwner(userId)));
     }
 
-    public List<Booking> findPastBookingsByBookerId(long userId) {
-        return repository.findBookingsByBookerIdAndEndBeforeOrderByEndDesc(userId, LocalDateTime.now());
+    @Override
+    public BookingSummaryDto getBookingSummaryByBookerId(long userId) {
+        return summaryCache.get(BookingRole.BOOKER, userId,
+                () -> mapToSummary(repository.countStatesByBookerId(userId)));
     }
 
-    public List<Booking> findCurrentBookingsByOwnerId(long userId) {
-        return repository.findBookingsByItemOwnerAndStartBeforeAndEndAfter(userId, LocalDateTime.now(), LocalDateTime.now());
+    @Override
+    public void exportBookingsByOwnerId(long userId, Consumer<Booking> consumer) {
+        log.info("Exporting bookings for owner with ID: {}", userId);
+        try (Stream<Booking> bookings = repository.streamBookingsByItemOwnerOrderByStartDescIdDesc(userId)) {
+            int exported = 0;
+            for (Iterator<Booking> iterator = bookings.iterator(); iterator.hasNext(); ) {
+                Booking booking = iterator.next();
+                consumer.accept(booking);
+                entityManager.detach(booking);
+                if (++exported % BookingRepository.EXPORT_FETCH_SIZE == 0) {
+                    // also drops the items and bookers the detached bookings pointed to
+                    entityManager.clear();
+                }
+            }
+        }
     }
 
-    public List<Booking> findCurrentBookingsByBookerId(long userId) {
-        return repository.findBookingsByBookerIdAndStartBeforeAndEndAfter(userId, LocalDateTime.now(), LocalDateTime.now());
+    private BookingSummaryDto mapToSummary(List<BookingStateCount> counts) {
+        BookingSummaryDto summary = new BookingSummaryDto();
+        for (BookingStateCount count : counts) {
+            long value = count.getCount();
+            summary.setAll(summary.getAll() + value);
+            if (count.getPhase() == BookingPhase.CURRENT) {
+                summary.setCurrent(summary.getCurrent() + value);
+            } else if (count.getPhase() == BookingPhase.PAST) {
+                summary.setPast(summary.getPast() + value);
+            } else {
+                summary.setFuture(summary.getFuture() + value);
+            }
+            if (count.getStatus() == BookingStatus.WAITING) {
+                summary.setWaiting(summary.getWaiting() + value);
+            } else if (count.getStatus() == BookingStatus.REJECTED) {
+                summary.setRejected(summary.getRejected() + value);
+            }
+        }
+        return summary;
     }
 
-    @Override
-    public List<Booking> findBookingsByStateAndBookerId(long userId, String state, int from, int size) {
+    private Slice<Booking> findBookingsByState(BookingRole role, long userId, String state, String cursor, int size) {
         if (!existsBookingByBookerIdOrItemOwner(userId, userId)) {
             throw new ResourceNotFoundException("No bookings found for user with ID: " + userId);
         }
 
-        if (state != null) {
-            switch (state) {
-                case "ALL":
-                    log.info("Retrieving all bookings for booker with ID: {}", userId);
-                    return findBookingsByBookerId(userId, from, size);
-                case "FUTURE":
-                    log.info("Retrieving future bookings for booker with ID: {}", userId);
-                    return findBookingsByBookerId(userId, from, size);
-                case "WAITING":
-                    log.info("Retrieving waiting bookings for booker with ID: {}", userId);
-                    return findBookingsByBookerIdAndStatusWaiting(userId);
-                case "REJECTED":
-                    log.info("Retrieving rejected bookings for booker with ID: {}", userId);
-                    return findBookingsByBookerIdAndStatusRejected(userId);
-                case "PAST":
-                    log.info("Retrieving past bookings for booker with ID: {}", userId);
-                    return findPastBookingsByBookerId(userId);
-                case "CURRENT":
-                    log.info("Retrieving current bookings for booker with ID: {}", userId);
-                    return findCurrentBookingsByBookerId(userId);
-                default:
-                    throw new ValidationException("Unknown state: " + state);
-            }
-        } else {
-            log.info("No state specified. Retrieving all bookings for booker with ID: {}", userId);
-            return findBookingsByBookerIdOrItemOwner(userId, userId);
+        BookingState bookingState = BookingState.from(state);
+        log.info("Retrieving {} bookings page for {} with ID: {} after cursor: {}", bookingState, role, userId,
+                cursor);
+        Specification<Booking> specification = BookingSpecifications.byRoleAndState(role, userId, bookingState);
+        if (!cursor.isEmpty()) {
+            specification = specification.and(BookingSpecifications.beforeCursor(BookingCursor.decode(cursor)));
         }
+        return repository.findSlice(specification, BOOKING_ORDER, 0, size);
     }
 
     @Override
@@ -245,32 +553,4 @@ public class BookingServiceImpl implements BookingService {
                 Sort.by(Sort.Direction.DESC, "start"));
         return bookings;
     }
-
-    @Override
-    public List<Booking> findBookingsByBookerIdAndStatusWaiting(long userId) {
-        List<Booking> bookings = repository.findBookingsByBookerIdAndStatus(userId, BookingStatus.WAITING,
-                Sort.by(Sort.Direction.DESC, "start"));
-        return bookings;
-    }
-
-    @Override
-    public List<Booking> findBookingsByItemOwnerAndStatusWaiting(long userId) {
-        List<Booking> bookings = repository.findBookingsByItemOwnerAndStatus(userId, BookingStatus.WAITING,
-                Sort.by(Sort.Direction.DESC, "start"));
-        return bookings;
-    }
-
-    @Override
-    public List<Booking> findBookingsByItemOwnerAndStatusRejected(long userId) {
-        List<Booking> bookings = repository.findBookingsByItemOwnerAndStatus(userId, BookingStatus.REJECTED,
-                Sort.by(Sort.Direction.DESC, "start"));
-        return bookings;
-    }
-
-    @Override
-    public List<Booking> findBookingsByBookerIdAndStatusRejected(long userId) {
-        List<Booking> bookings = repository.findBookingsByBookerIdAndStatus(userId, BookingStatus.REJECTED,
-                Sort.by(Sort.Direction.DESC, "start"));
-        return bookings;
-    }
 }
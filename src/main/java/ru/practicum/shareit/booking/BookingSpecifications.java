@@ -0,0 +1,47 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingPhase;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class BookingSpecifications {
+
+    public static Specification<Booking> byRoleAndState(BookingRole role, long userId, BookingState state) {
+        return Specification.where(byRole(role, userId)).and(byState(state));
+    }
+
+    public static Specification<Booking> byRole(BookingRole role, long userId) {
+        if (role == BookingRole.OWNER) {
+            return (root, query, cb) -> cb.equal(root.get("item").get("owner"), userId);
+        }
+        return (root, query, cb) -> cb.equal(root.get("booker").get("id"), userId);
+    }
+
+    public static Specification<Booking> byState(BookingState state) {
+        switch (state) {
+            case CURRENT:
+                return (root, query, cb) -> cb.equal(root.get("phase"), BookingPhase.CURRENT);
+            case PAST:
+                return (root, query, cb) -> cb.equal(root.get("phase"), BookingPhase.PAST);
+            case FUTURE:
+                return (root, query, cb) -> cb.equal(root.get("phase"), BookingPhase.FUTURE);
+            case WAITING:
+                return (root, query, cb) -> cb.equal(root.get("status"), BookingStatus.WAITING);
+            case REJECTED:
+                return (root, query, cb) -> cb.equal(root.get("status"), BookingStatus.REJECTED);
+            default:
+                return (root, query, cb) -> cb.conjunction();
+        }
+    }
+
+    public static Specification<Booking> beforeCursor(BookingCursor cursor) {
+        return (root, query, cb) -> cb.or(cb.lessThan(root.get("start"), cursor.getStart()),
+                cb.and(cb.equal(root.get("start"), cursor.getStart()), cb.lessThan(root.get("id"), cursor.getId())));
+    }
+}
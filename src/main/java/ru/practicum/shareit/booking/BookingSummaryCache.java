@@ -0,0 +1,57 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.model.BookingRole;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+@Component
+public class BookingSummaryCache {
+
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final long ttlNanos;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public BookingSummaryCache(@Value("${shareit.bookings.summary-ttl:PT5S}") Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public BookingSummaryDto get(BookingRole role, long userId, Supplier<BookingSummaryDto> loader) {
+        if (ttlNanos <= 0) {
+            return loader.get();
+        }
+
+        String key = role + ":" + userId;
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry != null && now - entry.loadedAt < ttlNanos) {
+            return entry.summary;
+        }
+
+        BookingSummaryDto summary = loader.get();
+        if (entries.size() >= MAX_ENTRIES) {
+            entries.values().removeIf(expired -> now - expired.loadedAt >= ttlNanos);
+            if (entries.size() >= MAX_ENTRIES) {
+                entries.clear();
+            }
+        }
+        entries.put(key, new Entry(now, summary));
+        return summary;
+    }
+
+    @AllArgsConstructor
+    private static class Entry {
+
+        private final long loadedAt;
+
+        private final BookingSummaryDto summary;
+    }
+}
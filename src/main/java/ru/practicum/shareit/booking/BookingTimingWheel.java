@@ -0,0 +1,113 @@
+package ru.practicum.shareit.booking;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BookingTimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final LocalDateTime origin;
+
+    private final long tickMillis;
+
+    private final List<List<Entry>> wheels = new ArrayList<>(LEVELS * SLOTS);
+
+    private final List<Entry> due = new ArrayList<>();
+
+    private long currentTick;
+
+    private int size;
+
+    public BookingTimingWheel(Duration tick, LocalDateTime now) {
+        this.origin = now;
+        this.tickMillis = tick.toMillis();
+        for (int i = 0; i < LEVELS * SLOTS; i++) {
+            wheels.add(new ArrayList<>());
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void add(long id, LocalDateTime deadline) {
+        long millis = Duration.between(origin, deadline).toMillis();
+        long tick = millis <= 0 ? 0 : (millis + tickMillis - 1) / tickMillis;
+        place(new Entry(id, tick));
+        size++;
+    }
+
+    public List<Long> advance(LocalDateTime now) {
+        long targetTick = Duration.between(origin, now).toMillis() / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            List<Entry> slot = wheels.get((int) (currentTick & SLOT_MASK));
+            due.addAll(slot);
+            slot.clear();
+        }
+
+        List<Long> ids = new ArrayList<>(due.size());
+        for (Entry entry : due) {
+            ids.add(entry.id);
+        }
+        due.clear();
+        size -= ids.size();
+        return ids;
+    }
+
+    // when the lower levels wrap around, the matching slots of the upper levels are redistributed downwards,
+    // highest level first so that entries can fall through several levels within the same tick
+    private void cascade() {
+        int level = 0;
+        while (level < LEVELS - 1 && (currentTick >> (SLOT_BITS * (level + 1)) << (SLOT_BITS * (level + 1)))
+                == currentTick) {
+            level++;
+        }
+        for (; level > 0; level--) {
+            List<Entry> slot = wheels.get(level * SLOTS + slotIndex(currentTick, level));
+            List<Entry> entries = new ArrayList<>(slot);
+            slot.clear();
+            entries.forEach(this::place);
+        }
+    }
+
+    private void place(Entry entry) {
+        long delta = entry.tick - currentTick;
+        if (delta <= 0) {
+            due.add(entry);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < 1L << (SLOT_BITS * (level + 1))) {
+                wheels.get(level * SLOTS + slotIndex(entry.tick, level)).add(entry);
+                return;
+            }
+        }
+        // beyond the range of the wheel: park in the top slot visited last and re-place it from there
+        int level = LEVELS - 1;
+        wheels.get(level * SLOTS + ((slotIndex(currentTick, level) + SLOT_MASK) & SLOT_MASK)).add(entry);
+    }
+
+    private static int slotIndex(long tick, int level) {
+        return (int) ((tick >> (SLOT_BITS * level)) & SLOT_MASK);
+    }
+
+    private static class Entry {
+
+        private final long id;
+
+        private final long tick;
+
+        private Entry(long id, long tick) {
+            this.id = id;
+            this.tick = tick;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingCreateSnapshot {
+
+    private Long itemId;
+
+    private Boolean itemAvailable;
+
+    private Long ownerId;
+}
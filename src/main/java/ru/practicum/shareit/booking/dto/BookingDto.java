@@ -1,5 +1,6 @@
 package ru.practicum.shareit.booking.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -31,7 +32,10 @@ public class BookingDto {
     private LocalDateTime end;
 
     @NotNull(groups = Create.class, message = "Предмет не может быть пустым")
-    private ItemDto item;
+    private BookingItemSummary item;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ItemDto itemDetails;
 
     private UserDto booker;
 
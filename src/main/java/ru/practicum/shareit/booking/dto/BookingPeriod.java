@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingPeriod {
+
+    private Long id;
+
+    private Long itemId;
+
+    private LocalDateTime start;
+
+    private LocalDateTime end;
+}
@@ -21,8 +21,13 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Entity
 @Table(name = "bookings", schema = "public")
+@NamedEntityGraph(name = Booking.ITEM_AND_BOOKER_GRAPH,
+        attributeNodes = {@NamedAttributeNode(value = "item", subgraph = "item"), @NamedAttributeNode("booker")},
+        subgraphs = @NamedSubgraph(name = "item", attributeNodes = @NamedAttributeNode("requestId")))
 public class Booking {
 
+    public static final String ITEM_AND_BOOKER_GRAPH = "Booking.itemAndBooker";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long id;
@@ -52,5 +57,20 @@ public class Booking {
     @NotNull(groups = Create.class, message = "Статус не может быть пустым")
     @Column(name = "status")
     private BookingStatus status;
+
+    // advanced only by bulk updates from BookingPhaseScheduler, never by entity saves
+    @Column(name = "phase", updatable = false)
+    private BookingPhase phase;
+
+    @Version
+    @Column(name = "version")
+    private long version;
+
+    @PrePersist
+    private void initPhase() {
+        if (phase == null) {
+            phase = BookingPhase.of(start, end, LocalDateTime.now());
+        }
+    }
 }
 
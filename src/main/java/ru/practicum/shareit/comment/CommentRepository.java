@@ -1,13 +1,24 @@
 package ru.practicum.shareit.comment;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.model.Comment;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     List<Comment> findAllByItemId(Long itemId);
 
+    List<Comment> findAllByItemIdInOrderById(Collection<Long> itemIds);
+
+    @Query("SELECT new ru.practicum.shareit.comment.dto.CommentDto(c.id, c.text, u.name, c.createdAt) "
+            + "FROM Comment c JOIN User u ON u.id = c.authorId "
+            + "WHERE c.itemId = :itemId ORDER BY c.id")
+    List<CommentDto> findCommentDtosByItemId(@Param("itemId") Long itemId);
+
 }
\ No newline at end of file
@@ -1,14 +1,22 @@
 package ru.practicum.shareit.exceptions;
 
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.sql.SQLException;
+import java.util.Locale;
+
 @RestControllerAdvice
 @Slf4j
 public class ErrorHandler {
+
+    private static final String BOOKING_OVERLAP_CONSTRAINT = "bookings_no_overlap";
+
     @ExceptionHandler(ValidationException.class)
     public ResponseEntity<ErrorMessage> handleValidationException(final ValidationException e) {
         log.warn(e.getMessage());
@@ -32,4 +40,30 @@ public class ErrorHandler {
                 .status(HttpStatus.CONFLICT) //409
                 .body(new ErrorMessage(e.getMessage()));
     }
+
+    // only an overlapping booking is a conflict; any other violation is a bug and is rethrown as such
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ErrorMessage> handleDataIntegrityViolationException(final DataIntegrityViolationException e) {
+        if (!violates(e, BOOKING_OVERLAP_CONSTRAINT)) {
+            throw e;
+        }
+        log.warn(e.getMostSpecificCause().getMessage());
+        return handleConflictException(new ConflictException("The item is already booked for this period."));
+    }
+
+    // Hibernate reports the constraint name when it can parse one; JDBC batches only carry the driver's message
+    private static boolean violates(Throwable e, String constraint) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            String name = null;
+            if (cause instanceof ConstraintViolationException) {
+                name = ((ConstraintViolationException) cause).getConstraintName();
+            } else if (cause instanceof SQLException) {
+                name = cause.getMessage();
+            }
+            if (name != null && name.toLowerCase(Locale.ROOT).contains(constraint)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.idempotency;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface IdempotencyRepository {
+
+    Optional<IdempotentResponse> findByKeyAndCreatedAfter(String key, LocalDateTime createdAfter);
+
+    void save(String key, IdempotentResponse response, LocalDateTime created);
+
+    int deleteCreatedBefore(LocalDateTime createdBefore);
+}
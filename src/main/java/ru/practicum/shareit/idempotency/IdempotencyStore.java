@@ -0,0 +1,175 @@
+package ru.practicum.shareit.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.exceptions.ConflictException;
+import ru.practicum.shareit.exceptions.ValidationException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+@Component
+@Slf4j
+public class IdempotencyStore {
+
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final Duration ttl;
+
+    private final int maxEntries;
+
+    private final IdempotencyRepository repository;
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    public IdempotencyStore(@Value("${shareit.idempotency.ttl:PT24H}") Duration ttl,
+                            @Value("${shareit.idempotency.max-entries:10000}") int maxEntries,
+                            ObjectProvider<IdempotencyRepository> repository, ObjectMapper objectMapper) {
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.repository = repository.getIfAvailable();
+        this.objectMapper = objectMapper;
+    }
+
+    // runs the action once per key; replays and concurrent duplicates with the same request get its response
+    public <T> T execute(String scope, long userId, String key, Object request, Class<T> responseType,
+                         Supplier<T> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new ValidationException(IDEMPOTENCY_KEY + " must be 1 to " + MAX_KEY_LENGTH + " characters long");
+        }
+
+        String id = scope + ":" + userId + ":" + key;
+        String requestJson = writeJson(request);
+        long now = System.nanoTime();
+        Entry created = new Entry(requestJson, now);
+        Entry entry = entries.compute(id, (k, existing) -> existing == null || existing.isExpired(now, ttl)
+                ? created : existing);
+        if (entry != created) {
+            return replay(entry, requestJson, responseType);
+        }
+
+        insertionOrder.add(id);
+        evict();
+        try {
+            T response = findStored(id, requestJson, responseType).orElseGet(() -> {
+                T result = action.get();
+                store(id, requestJson, result);
+                return result;
+            });
+            entry.response.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            entries.remove(id, entry);
+            entry.response.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.idempotency.purge-delay:3600000}")
+    public void purge() {
+        if (repository != null) {
+            int purged = repository.deleteCreatedBefore(LocalDateTime.now().minus(ttl));
+            log.debug("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    private <T> T replay(Entry entry, String request, Class<T> responseType) {
+        if (!entry.request.equals(request)) {
+            throw new ConflictException(IDEMPOTENCY_KEY + " has already been used with a different request");
+        }
+        try {
+            return responseType.cast(entry.response.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private <T> Optional<T> findStored(String id, String request, Class<T> responseType) {
+        if (repository == null) {
+            return Optional.empty();
+        }
+        return repository.findByKeyAndCreatedAfter(id, LocalDateTime.now().minus(ttl)).map(stored -> {
+            if (!stored.getRequest().equals(request)) {
+                throw new ConflictException(IDEMPOTENCY_KEY + " has already been used with a different request");
+            }
+            try {
+                return objectMapper.readValue(stored.getResponse(), responseType);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Stored idempotent response cannot be read", e);
+            }
+        });
+    }
+
+    private void store(String id, String request, Object response) {
+        if (repository != null) {
+            repository.save(id, new IdempotentResponse(request, writeJson(response)), LocalDateTime.now());
+        }
+    }
+
+    private String writeJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Idempotent request cannot be stored", e);
+        }
+    }
+
+    // drops the oldest completed keys once the store is full; keys still in flight are kept
+    private void evict() {
+        for (int checked = insertionOrder.size(); entries.size() > maxEntries && checked > 0; checked--) {
+            String id = insertionOrder.poll();
+            if (id == null) {
+                return;
+            }
+            Entry entry = entries.get(id);
+            if (entry != null && !entry.response.isDone()) {
+                insertionOrder.add(id);
+            } else if (entry != null) {
+                entries.remove(id, entry);
+            }
+        }
+    }
+
+    private static class Entry {
+
+        private final String request;
+
+        private final long createdAt;
+
+        private final CompletableFuture<Object> response = new CompletableFuture<>();
+
+        private Entry(String request, long createdAt) {
+            this.request = request;
+            this.createdAt = createdAt;
+        }
+
+        private boolean isExpired(long now, Duration ttl) {
+            return response.isDone() && now - createdAt >= ttl.toNanos();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package ru.practicum.shareit.idempotency;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.idempotency.persistent", havingValue = "true")
+public class JdbcIdempotencyRepository implements IdempotencyRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Optional<IdempotentResponse> findByKeyAndCreatedAfter(String key, LocalDateTime createdAfter) {
+        return jdbcTemplate.query("SELECT request, response FROM idempotency_keys WHERE id = ? AND created_at > ?",
+                (rs, rowNum) -> new IdempotentResponse(rs.getString("request"), rs.getString("response")),
+                key, Timestamp.valueOf(createdAfter)).stream().findFirst();
+    }
+
+    @Override
+    public void save(String key, IdempotentResponse response, LocalDateTime created) {
+        try {
+            jdbcTemplate.update("INSERT INTO idempotency_keys (id, request, response, created_at) VALUES (?, ?, ?, ?)",
+                    key, response.getRequest(), response.getResponse(), Timestamp.valueOf(created));
+        } catch (DuplicateKeyException e) {
+            jdbcTemplate.update("UPDATE idempotency_keys SET request = ?, response = ?, created_at = ? WHERE id = ?",
+                    response.getRequest(), response.getResponse(), Timestamp.valueOf(created), key);
+        }
+    }
+
+    @Override
+    public int deleteCreatedBefore(LocalDateTime createdBefore) {
+        return jdbcTemplate.update("DELETE FROM idempotency_keys WHERE created_at < ?", Timestamp.valueOf(createdBefore));
+    }
+}
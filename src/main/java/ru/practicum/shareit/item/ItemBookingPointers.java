@@ -0,0 +1,104 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ItemBookingPointers {
+
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    @Transactional
+    public void refresh(Collection<Long> itemIds) {
+        refresh(itemRepository.findAllById(itemIds), LocalDateTime.now());
+    }
+
+    // for callers inside a read-only transaction, where the pointers they refresh would never be flushed; the items
+    // are only queued once the caller commits, so its connection is back in the pool before flush() takes one
+    public void refreshAfterCommit(Collection<Long> itemIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            pending.addAll(itemIds);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pending.addAll(itemIds);
+            }
+        });
+    }
+
+    // items queued here are also picked up by advance(), should a flush fail
+    @Scheduled(fixedDelayString = "${shareit.items.booking-flush-delay:1000}")
+    @Transactional
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Long> itemIds = new ArrayList<>(pending);
+        pending.removeAll(itemIds);
+        log.debug("Refreshing last and next bookings of {} items after reads", itemIds.size());
+        refresh(itemIds);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.items.booking-sweep-delay:60000}",
+            initialDelayString = "${shareit.items.booking-sweep-delay:60000}")
+    @Transactional
+    public void advance() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Item> items = itemRepository.findItemsByNextBookingStartBefore(now);
+        if (!items.isEmpty()) {
+            log.debug("Advancing last and next bookings of {} items", items.size());
+            refresh(items, now);
+        }
+    }
+
+    public void refresh(List<Item> items, LocalDateTime now) {
+        if (items.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Item> itemsById = new HashMap<>();
+        for (Item item : items) {
+            item.setLastBooking(null);
+            item.setNextBooking(null);
+            itemsById.put(item.getId(), item);
+        }
+
+        List<Booking> bookings = bookingRepository.findLastAndNextBookingsByItemIds(itemsById.keySet(),
+                BookingStatus.APPROVED, now);
+        for (Booking booking : bookings) {
+            Item item = itemsById.get(booking.getItem().getId());
+            if (booking.getStart().isBefore(now)) {
+                if (item.getLastBooking() == null) {
+                    item.setLastBooking(booking);
+                }
+            } else if (item.getNextBooking() == null) {
+                item.setNextBooking(booking);
+            }
+        }
+    }
+}
@@ -2,16 +2,23 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.idempotency.IdempotencyStore;
 import ru.practicum.shareit.intf.Create;
 import ru.practicum.shareit.intf.Update;
+import ru.practicum.shareit.item.dto.ItemCalendarDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
 
+import static ru.practicum.shareit.idempotency.IdempotencyStore.IDEMPOTENCY_KEY;
+
 @RestController
 @RequestMapping("/items")
 @RequiredArgsConstructor
@@ -20,6 +27,7 @@ public class ItemController {
 
     public static final String USER_ID = "X-Sharer-User-Id";
     private final ItemService itemService;
+    private final IdempotencyStore idempotencyStore;
 
     @GetMapping("/{itemId}")
     @ResponseStatus(HttpStatus.OK)
@@ -32,9 +40,11 @@ public class ItemController {
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public ItemDto saveItem(@RequestHeader(USER_ID) long userId,
+                            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
                             @Validated(Create.class) @RequestBody ItemDto itemDto) {
         log.info("Добавление предмета у пользователя под id: {}", userId);
-        return itemService.saveItem(userId, itemDto);
+        return idempotencyStore.execute("items", userId, idempotencyKey, itemDto, ItemDto.class,
+                () -> itemService.saveItem(userId, itemDto));
     }
 
     @PatchMapping("/{itemId}")
@@ -54,9 +64,32 @@ public class ItemController {
 
     @GetMapping("/search")
     @ResponseStatus(HttpStatus.OK)
-    public List<ItemDto> searchItems(@RequestParam("text") String searchText) {
+    public List<ItemDto> searchItems(@RequestParam("text") String searchText,
+                                     @RequestParam(value = "from", defaultValue = "0") int from,
+                                     @RequestParam(value = "size", defaultValue = "20") int size) {
         log.info("Поиск всех предметов под text: {}", searchText);
-        return itemService.searchItems(searchText);
+        return itemService.searchItems(searchText, from, size);
+    }
+
+    @GetMapping("/available")
+    @ResponseStatus(HttpStatus.OK)
+    public List<ItemDto> findAvailableItems(@RequestParam("from")
+                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                            @RequestParam("to")
+                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                            @RequestParam("text") String searchText,
+                                            @RequestParam(value = "offset", defaultValue = "0") int offset,
+                                            @RequestParam(value = "size", defaultValue = "20") int size) {
+        log.info("Поиск предметов под text: {}, свободных с {} по {}", searchText, from, to);
+        return itemService.findAvailableItems(searchText, from, to, offset, size);
+    }
+
+    @GetMapping("/{itemId}/calendar")
+    @ResponseStatus(HttpStatus.OK)
+    public ItemCalendarDto getItemCalendar(@RequestHeader(USER_ID) long userId, @PathVariable("itemId") long itemId,
+                                           @RequestParam(value = "month", required = false) YearMonth month) {
+        log.info("Вывод календаря предмета под id: {} за {}", itemId, month);
+        return itemService.getItemCalendar(userId, itemId, month == null ? YearMonth.now() : month);
     }
 
     @PostMapping("/{itemId}/comment")
@@ -19,6 +19,30 @@ public class ItemMapper {
             return null;
         }
 
+        ItemDto itemDto = mapToItemDtoWithoutComments(item);
+
+        if (item.getComments() != null) {
+            List<CommentDto> commentDtos = CommentMapper.mapToCommentDto(item.getComments());
+            itemDto.setComments(commentDtos);
+        }
+        return itemDto;
+    }
+
+    public static ItemDto mapToItemDto(Item item, List<CommentDto> comments) {
+        if (item == null) {
+            return null;
+        }
+
+        ItemDto itemDto = mapToItemDtoWithoutComments(item);
+        itemDto.setComments(comments);
+        return itemDto;
+    }
+
+    public static ItemDto mapToItemDtoWithoutComments(Item item) {
+        if (item == null) {
+            return null;
+        }
+
         ItemDto itemDto = ItemDto.builder()
                 .id(item.getId())
                 .name(item.getName())
@@ -26,11 +50,6 @@ public class ItemMapper {
                 .available(item.getAvailable())
                 .build();
 
-        if (item.getComments() != null) {
-            List<CommentDto> commentDtos = CommentMapper.mapToCommentDto(item.getComments());
-            itemDto.setComments(commentDtos);
-        }
-
         if (item.getRequestId() != null) {
             itemDto.setRequestId(item.getRequestId().getRequestor());
         }
@@ -1,16 +1,43 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemText;
 import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
 
+    @EntityGraph(attributePaths = {"lastBooking.booker", "nextBooking.booker"})
     List<Item> findItemsByOwner(long ownerId);
 
+    @EntityGraph(attributePaths = {"lastBooking.booker", "nextBooking.booker"})
+    Optional<Item> findItemWithBookingsById(long itemId);
+
+    List<Item> findItemsByNextBookingStartBefore(LocalDateTime now);
+
     List<Item> findByDescriptionContainingIgnoreCaseAndAvailableIsTrueOrNameContainingIgnoreCaseAndAvailableIsTrue(
             String description, String name
     );
 
+    List<Item> findByDescriptionContainingIgnoreCaseAndAvailableIsTrueOrNameContainingIgnoreCaseAndAvailableIsTrue(
+            String description, String name, Pageable pageable
+    );
+
+    @Query("SELECT new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.available, r.requestor) "
+            + "FROM Item i LEFT JOIN i.requestId r WHERE i.id IN :ids")
+    List<ItemDto> findItemDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new ru.practicum.shareit.item.dto.ItemText(i.id, i.name, i.description) FROM Item i "
+            + "WHERE i.available = true")
+    List<ItemText> findAvailableItemTexts();
+
 }
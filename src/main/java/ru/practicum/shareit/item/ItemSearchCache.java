@@ -0,0 +1,169 @@
+package ru.practicum.shareit.item;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.dto.ItemText;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+@Component
+@ManagedResource(objectName = "ru.practicum.shareit:type=ItemSearchCache")
+public class ItemSearchCache {
+
+    private final ItemSearchEngine searchEngine;
+
+    private final long maxWeight;
+
+    private final Map<Key, List<Long>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private long weight;
+
+    private long version;
+
+    public ItemSearchCache(ItemSearchEngine searchEngine,
+                           @Value("${shareit.items.search-cache.max-weight:100000}") long maxWeight) {
+        this.searchEngine = searchEngine;
+        this.maxWeight = maxWeight;
+    }
+
+    public List<Long> get(String text, int from, int size, Supplier<List<Long>> loader) {
+        if (maxWeight <= 0) {
+            return loader.get();
+        }
+
+        Key key = new Key(text.toUpperCase(Locale.ROOT), from, size);
+        long loadVersion;
+        synchronized (this) {
+            List<Long> itemIds = entries.get(key);
+            if (itemIds != null) {
+                hits.increment();
+                return itemIds;
+            }
+            loadVersion = version;
+        }
+
+        misses.increment();
+        List<Long> itemIds = List.copyOf(loader.get());
+        synchronized (this) {
+            // an item changed while loading, so the result may already be stale
+            if (loadVersion == version && !entries.containsKey(key)) {
+                entries.put(key, itemIds);
+                weight += weigh(itemIds);
+                evict();
+            }
+        }
+        return itemIds;
+    }
+
+    // drops the results an item could have entered or left; null stands for an item that is not searchable
+    public void invalidate(ItemText previous, ItemText current) {
+        if (maxWeight <= 0 || Objects.equals(previous, current)) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidateMatching(previous, current);
+            return;
+        }
+        synchronized (this) {
+            version++;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidateMatching(previous, current);
+            }
+        });
+    }
+
+    @ManagedAttribute
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @ManagedAttribute
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @ManagedAttribute
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long requestCount = hitCount + misses.sum();
+        return requestCount == 0 ? 0 : (double) hitCount / requestCount;
+    }
+
+    @ManagedAttribute
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @ManagedAttribute
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    @ManagedAttribute
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    private synchronized void invalidateMatching(ItemText previous, ItemText current) {
+        version++;
+        Iterator<Map.Entry<Key, List<Long>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, List<Long>> entry = iterator.next();
+            if (matches(entry.getKey().text, previous) || matches(entry.getKey().text, current)) {
+                weight -= weigh(entry.getValue());
+                iterator.remove();
+            }
+        }
+    }
+
+    private boolean matches(String text, ItemText item) {
+        return item != null && searchEngine.matches(text, item.getName(), item.getDescription());
+    }
+
+    // least recently used results go first once the cached ids outweigh the limit
+    private void evict() {
+        Iterator<List<Long>> iterator = entries.values().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            weight -= weigh(iterator.next());
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    private static long weigh(List<Long> itemIds) {
+        return itemIds.size() + 1;
+    }
+
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static class Key {
+
+        private final String text;
+
+        private final int from;
+
+        private final int size;
+    }
+}
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.item;
+
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.List;
+import java.util.Locale;
+
+public interface ItemSearchEngine {
+
+    String PROPERTY = "shareit.items.search-engine";
+
+    // ids of the available items matching the text, best match first, skipping the first from matches
+    List<Long> search(String text, int from, int size);
+
+    default List<Long> search(String text) {
+        return search(text, 0, Integer.MAX_VALUE);
+    }
+
+    default void index(Item item) {
+    }
+
+    // whether an available item with this name and description would be among the results for the text
+    default boolean matches(String text, String name, String description) {
+        String query = text.toUpperCase(Locale.ROOT);
+        return (name != null && name.toUpperCase(Locale.ROOT).contains(query))
+                || (description != null && description.toUpperCase(Locale.ROOT).contains(query));
+    }
+}
@@ -0,0 +1,263 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.dto.ItemText;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = ItemSearchEngine.PROPERTY, havingValue = "index", matchIfMissing = true)
+public class ItemSearchIndex implements ItemSearchEngine {
+
+    static final int GRAM_LENGTH = 3;
+
+    private final ItemRepository itemRepository;
+
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    private final Map<Integer, String[]> texts = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            List<ItemText> items = itemRepository.findAvailableItemTexts();
+            items.forEach(item -> put(Math.toIntExact(item.getId()), item.getName(), item.getDescription()));
+            loaded = true;
+            log.info("Indexed {} available items, {} trigrams", items.size(), postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ids of available items whose name or description contains the text, ignoring case, in ascending order
+    @Override
+    public List<Long> search(String text, int from, int size) {
+        String query = fold(text);
+        if (query.isEmpty()) {
+            return new ArrayList<>();
+        }
+        load();
+        lock.readLock().lock();
+        try {
+            int[] candidates = query.length() < GRAM_LENGTH ? findShort(query) : findLong(query);
+            List<Long> itemIds = new ArrayList<>();
+            int skipped = 0;
+            for (int i = 0; i < candidates.length && itemIds.size() < size; i++) {
+                String[] itemTexts = texts.get(candidates[i]);
+                if (!contains(itemTexts[0], query) && !contains(itemTexts[1], query)) {
+                    continue;
+                }
+                if (skipped < from) {
+                    skipped++;
+                } else {
+                    itemIds.add((long) candidates[i]);
+                }
+            }
+            return itemIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(Item item) {
+        int itemId = Math.toIntExact(item.getId());
+        String name = item.getName();
+        String description = item.getDescription();
+        boolean available = Boolean.TRUE.equals(item.getAvailable());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            index(itemId, name, description, available);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                index(itemId, name, description, available);
+            }
+        });
+    }
+
+    // same folding as the upper(...) LIKE upper(...) the repository query generates
+    static String fold(String text) {
+        return text == null ? null : text.toUpperCase(Locale.ROOT);
+    }
+
+    // every trigram of the text; text shorter than a trigram is kept whole so short queries can still find it
+    static Set<String> grams(String folded) {
+        Set<String> grams = new HashSet<>();
+        if (folded == null || folded.isEmpty()) {
+            return grams;
+        }
+        if (folded.length() < GRAM_LENGTH) {
+            grams.add(folded);
+            return grams;
+        }
+        for (int i = 0; i + GRAM_LENGTH <= folded.length(); i++) {
+            grams.add(folded.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    // every trigram of a match is a trigram of the item, so intersecting their postings, smallest first, finds all
+    private int[] findLong(String query) {
+        List<Postings> lists = new ArrayList<>();
+        for (String gram : grams(query)) {
+            Postings itemIds = postings.get(gram);
+            if (itemIds == null) {
+                return new int[0];
+            }
+            lists.add(itemIds);
+        }
+        lists.sort(Comparator.comparingInt(itemIds -> itemIds.size));
+
+        int[] candidates = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+        for (int i = 1; i < lists.size() && candidates.length > 0; i++) {
+            candidates = lists.get(i).retain(candidates);
+        }
+        return candidates;
+    }
+
+    // a query shorter than a trigram is contained in some gram of every match, so the grams are scanned instead
+    private int[] findShort(String query) {
+        BitSet candidates = new BitSet();
+        postings.forEach((gram, itemIds) -> {
+            if (gram.contains(query)) {
+                itemIds.addTo(candidates);
+            }
+        });
+        return candidates.stream().toArray();
+    }
+
+    // before the first load the items are read from the database anyway, so there is nothing to update
+    private void index(int itemId, String name, String description, boolean available) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            remove(itemId);
+            if (available) {
+                put(itemId, name, description);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(int itemId, String name, String description) {
+        String[] itemTexts = {fold(name), fold(description)};
+        for (String gram : itemGrams(itemTexts)) {
+            postings.computeIfAbsent(gram, g -> new Postings()).add(itemId);
+        }
+        texts.put(itemId, itemTexts);
+    }
+
+    private void remove(int itemId) {
+        String[] itemTexts = texts.remove(itemId);
+        if (itemTexts == null) {
+            return;
+        }
+        for (String gram : itemGrams(itemTexts)) {
+            Postings itemIds = postings.get(gram);
+            if (itemIds.remove(itemId)) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static Set<String> itemGrams(String[] itemTexts) {
+        Set<String> grams = grams(itemTexts[0]);
+        grams.addAll(grams(itemTexts[1]));
+        return grams;
+    }
+
+    private static boolean contains(String folded, String query) {
+        return folded != null && folded.contains(query);
+    }
+
+    // sorted item ids of a single gram
+    private static class Postings {
+
+        private int[] ids = new int[4];
+
+        private int size;
+
+        private void add(int id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+
+        // returns true once the gram no longer has any items
+        private boolean remove(int id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+                size--;
+            }
+            return size == 0;
+        }
+
+        private int[] retain(int[] candidates) {
+            int[] retained = new int[candidates.length];
+            int count = 0;
+            int from = 0;
+            for (int candidate : candidates) {
+                int position = Arrays.binarySearch(ids, from, size, candidate);
+                if (position >= 0) {
+                    retained[count++] = candidate;
+                    from = position + 1;
+                } else {
+                    from = -position - 1;
+                }
+            }
+            return Arrays.copyOf(retained, count);
+        }
+
+        private void addTo(BitSet bits) {
+            for (int i = 0; i < size; i++) {
+                bits.set(ids[i]);
+            }
+        }
+    }
+}
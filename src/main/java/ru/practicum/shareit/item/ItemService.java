@@ -1,9 +1,12 @@
 package ru.practicum.shareit.item;
 
 import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemCalendarDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
 
 public interface ItemService {
@@ -18,7 +21,11 @@ public interface ItemService {
 
     CommentDto addComment(long userId, long itemId, String text);
 
-    List<ItemDto> searchItems(String searchText);
+    List<ItemDto> searchItems(String searchText, int from, int size);
+
+    List<ItemDto> findAvailableItems(String searchText, LocalDateTime from, LocalDateTime to, int offset, int size);
+
+    ItemCalendarDto getItemCalendar(long userId, long itemId, YearMonth month);
 
     List<CommentDto> getNameAuthor(Item item);
 
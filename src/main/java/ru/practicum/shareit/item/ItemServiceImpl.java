@@ -1,53 +1,75 @@
 package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.BookingAvailabilityIndex;
+import ru.practicum.shareit.booking.BookingCalendarIndex;
 import ru.practicum.shareit.booking.BookingMapper;
 import ru.practicum.shareit.booking.BookingRepository;
-import ru.practicum.shareit.booking.dto.BookingDto;
-import ru.practicum.shareit.booking.dto.BookingRequestDto;
-import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.comment.CommentMapper;
 import ru.practicum.shareit.comment.CommentRepository;
-import ru.practicum.shareit.comment.CommentService;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.model.Comment;
 import ru.practicum.shareit.exceptions.ResourceNotFoundException;
 import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.item.dto.ItemCalendarDayDto;
+import ru.practicum.shareit.item.dto.ItemCalendarDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemText;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.ItemRequestRepository;
 import ru.practicum.shareit.user.UserService;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class ItemServiceImpl implements ItemService {
 
+    static final int MAX_SEARCH_SIZE = 100;
+
     private final ItemRepository itemRepository;
     private final UserService userService;
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
-    private final CommentService commentService;
     private final ItemRequestRepository itemRequestRepository;
+    private final ItemBookingPointers itemBookingPointers;
+    private final BookingAvailabilityIndex availabilityIndex;
+    private final BookingCalendarIndex calendarIndex;
+    private final ItemSearchEngine searchEngine;
+    private final ItemSearchCache searchCache;
 
     @Override
     public List<ItemDto> findItemsByOwner(long userId) {
         List<Item> items = itemRepository.findItemsByOwner(userId);
+        if (items.isEmpty()) {
+            return new ArrayList<>();
+        }
+        refreshStartedBookings(items);
+        // one query for the comments of every item instead of loading each item's collection on its own
+        Map<Long, List<CommentDto>> comments = commentRepository.findAllByItemIdInOrderById(items.stream()
+                        .map(Item::getId)
+                        .collect(Collectors.toList())).stream()
+                .collect(Collectors.groupingBy(Comment::getItemId,
+                        Collectors.mapping(CommentMapper::mapToCommentDto, Collectors.toList())));
         List<ItemDto> itemDtos = new ArrayList<>();
         for (Item item : items) {
-            ItemDto b = ItemMapper.mapToItemDto(item);
-            b.setNextBooking(findNextBookingByItemId(item.getId()));
-            b.setLastBooking(findLastBookingByItemId(item.getId()));
-            itemDtos.add(b);
+            ItemDto itemDto = ItemMapper.mapToItemDto(item, comments.getOrDefault(item.getId(), new ArrayList<>()));
+            setLastAndNextBookings(item, itemDto);
+            itemDtos.add(itemDto);
         }
         return itemDtos;
     }
@@ -61,6 +83,7 @@ public class ItemServiceImpl implements ItemService {
             throw new ResourceNotFoundException("Отсутствует user под id");
         }
 
+        ItemText previous = searchableText(item);
         if (itemDto.getName() != null) {
             item.setName(itemDto.getName());
         }
@@ -73,39 +96,30 @@ public class ItemServiceImpl implements ItemService {
             item.setAvailable(itemDto.getAvailable());
         }
 
+        searchEngine.index(item);
+        searchCache.invalidate(previous, searchableText(item));
         return ItemMapper.mapToItemDto(item);
     }
 
     @Override
     public ItemDto getItemById(long userId, long itemId) {
-        Item item = itemRepository.findById(itemId).orElseThrow(()
+        Item item = itemRepository.findItemWithBookingsById(itemId).orElseThrow(()
                 -> new ResourceNotFoundException("Item not found with ID: " + itemId));
-        ItemDto itemDto = ItemMapper.mapToItemDto(item);
+        ItemDto itemDto = ItemMapper.mapToItemDto(item, getNameAuthor(item));
 
         if (item.getOwner() != userId) {
             itemDto.setNextBooking(null);
             itemDto.setLastBooking(null);
-            List<CommentDto> commentDtos = getNameAuthor(item);
-            itemDto.setComments(commentDtos);
         } else {
-            itemDto.setNextBooking(findNextBookingByItemId(itemId));
-            itemDto.setLastBooking(findLastBookingByItemId(itemId));
-            List<CommentDto> commentDtos = getNameAuthor(item);
-            itemDto.setComments(commentDtos);
+            refreshStartedBookings(List.of(item));
+            setLastAndNextBookings(item, itemDto);
         }
         return itemDto;
     }
 
     @Override
     public List<CommentDto> getNameAuthor(Item item) {
-        List<CommentDto> commentDtos = new ArrayList<>();
-        for (Comment comment : item.getComments()) {
-            CommentDto commentDto = CommentMapper.mapToCommentDto(comment);
-            String authorName = commentService.getNameAuthorByCommentId(comment.getId());
-            commentDto.setAuthorName(authorName);
-            commentDtos.add(commentDto);
-        }
-        return commentDtos;
+        return commentRepository.findCommentDtosByItemId(item.getId());
     }
 
     @Override
@@ -136,10 +150,9 @@ public class ItemServiceImpl implements ItemService {
             item.setRequestId(itemRequestRepository.findItemRequestByRequestor(itemDto.getRequestId()));
         }
         item = itemRepository.save(item);
-        ItemDto dto = ItemMapper.mapToItemDto(item);
-        dto.setNextBooking(findNextBookingByItemId(item.getId()));
-        dto.setLastBooking(findLastBookingByItemId(item.getId()));
-        dto.setComments(CommentMapper.mapToCommentDto(commentRepository.findAllByItemId(item.getId())));
+        searchEngine.index(item);
+        searchCache.invalidate(null, searchableText(item));
+        ItemDto dto = ItemMapper.mapToItemDto(item, getNameAuthor(item));
         if (itemDto.getRequestId() == 0) {
             dto.setRequestId(0);
         } else {
@@ -149,15 +162,66 @@ public class ItemServiceImpl implements ItemService {
     }
 
     @Override
-    public List<ItemDto> searchItems(String searchText) {
+    public List<ItemDto> searchItems(String searchText, int from, int size) {
+        if (from < 0 || size <= 0) {
+            throw new ValidationException("Некорректные параметры пагинации");
+        }
         if (searchText.isBlank()) {
             return new ArrayList<>();
         }
-        List<Item> items = itemRepository.
-                findByDescriptionContainingIgnoreCaseAndAvailableIsTrueOrNameContainingIgnoreCaseAndAvailableIsTrue(
-                        searchText, searchText
-                );
-        return ItemMapper.mapToItemDto(items);
+        int limit = Math.min(size, MAX_SEARCH_SIZE);
+        List<Long> itemIds = searchCache.get(searchText, from, limit,
+                () -> searchEngine.search(searchText, from, limit));
+        if (itemIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return inSearchOrder(itemIds, itemRepository.findItemDtosByIdIn(itemIds), ItemDto::getId);
+    }
+
+    @Override
+    public List<ItemDto> findAvailableItems(String searchText, LocalDateTime from, LocalDateTime to, int offset,
+                                            int size) {
+        if (offset < 0 || size <= 0) {
+            throw new ValidationException("Некорректные параметры пагинации");
+        }
+        if (!from.isBefore(to)) {
+            throw new ValidationException("The start of the window must be before its end");
+        }
+        if (!to.isAfter(LocalDateTime.now())) {
+            throw new ValidationException("The window must end in the future");
+        }
+        if (searchText.isBlank()) {
+            return new ArrayList<>();
+        }
+        // matches are filtered by id first, so only the requested page of available items is loaded
+        List<Long> itemIds = searchEngine.search(searchText).stream()
+                .filter(itemId -> availabilityIndex.isAvailable(itemId, from, to))
+                .skip(offset)
+                .limit(Math.min(size, MAX_SEARCH_SIZE))
+                .collect(Collectors.toList());
+        if (itemIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return inSearchOrder(itemIds, itemRepository.findItemDtosByIdIn(itemIds), ItemDto::getId);
+    }
+
+    @Override
+    public ItemCalendarDto getItemCalendar(long userId, long itemId, YearMonth month) {
+        userService.getUserById(userId);
+        if (!itemRepository.existsById(itemId)) {
+            throw new ResourceNotFoundException("Item not found with ID: " + itemId);
+        }
+
+        BitSet hours = calendarIndex.getMonth(itemId, month);
+        List<ItemCalendarDayDto> days = new ArrayList<>();
+        for (int hour = hours.nextSetBit(0); hour >= 0; hour = hours.nextSetBit(hour + 1)) {
+            int day = hour / BookingCalendarIndex.HOURS_PER_DAY;
+            if (days.isEmpty() || days.get(days.size() - 1).getDate().getDayOfMonth() != day + 1) {
+                days.add(new ItemCalendarDayDto(month.atDay(day + 1), new ArrayList<>()));
+            }
+            days.get(days.size() - 1).getHours().add(hour % BookingCalendarIndex.HOURS_PER_DAY);
+        }
+        return new ItemCalendarDto(itemId, month, days);
     }
 
     @Override
@@ -197,17 +261,47 @@ public class ItemServiceImpl implements ItemService {
         return commentDto;
     }
 
-    private BookingRequestDto findLastBookingByItemId(long itemId) {
-        Booking lastBookings = bookingRepository.findFirstBookingByItemIdAndStatusAndStartIsBefore(itemId,
-                BookingStatus.APPROVED, LocalDateTime.now(), Sort.by(Sort.Direction.DESC, "start"));
-        BookingDto lastBookingsDTO = BookingMapper.mapToBookingDto(lastBookings);
-        return BookingMapper.mapToBookingRequestDto(lastBookingsDTO);
+    private static ItemText searchableText(Item item) {
+        return Boolean.TRUE.equals(item.getAvailable())
+                ? new ItemText(item.getId(), item.getName(), item.getDescription())
+                : null;
     }
 
-    private BookingRequestDto findNextBookingByItemId(long itemId) {
-        Booking nextBookings = bookingRepository.findFirstBookingByItemIdAndStatusAndStartIsAfter(itemId,
-                BookingStatus.APPROVED, LocalDateTime.now(), Sort.by(Sort.Direction.ASC, "start"));
-        BookingDto nextBookingsDTO = BookingMapper.mapToBookingDto(nextBookings);
-        return BookingMapper.mapToBookingRequestDto(nextBookingsDTO);
+    // only the matches found by the search engine are loaded, then put back in the engine's order
+    private static <T> List<T> inSearchOrder(List<Long> itemIds, List<T> items, Function<T, Long> idGetter) {
+        Map<Long, Integer> positions = new HashMap<>();
+        for (int i = 0; i < itemIds.size(); i++) {
+            positions.put(itemIds.get(i), i);
+        }
+        return items.stream()
+                .sorted(Comparator.comparing(item -> positions.get(idGetter.apply(item))))
+                .collect(Collectors.toList());
+    }
+
+    private void refreshStartedBookings(List<Item> items) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Item> started = new ArrayList<>();
+        for (Item item : items) {
+            if (item.getNextBooking() != null && !item.getNextBooking().getStart().isAfter(now)) {
+                started.add(item);
+            }
+        }
+        if (!started.isEmpty()) {
+            // refreshed once here for the response; the read-only transaction cannot write them, so they are
+            // persisted after it commits
+            itemBookingPointers.refresh(started, now);
+            itemBookingPointers.refreshAfterCommit(started.stream()
+                    .map(Item::getId)
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    private void setLastAndNextBookings(Item item, ItemDto itemDto) {
+        if (item.getLastBooking() != null) {
+            itemDto.setLastBooking(BookingMapper.mapToBookingRequestDto(item.getLastBooking()));
+        }
+        if (item.getNextBooking() != null) {
+            itemDto.setNextBooking(BookingMapper.mapToBookingRequestDto(item.getNextBooking()));
+        }
     }
 }
@@ -0,0 +1,62 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = ItemSearchEngine.PROPERTY, havingValue = "postgres")
+public class PostgresItemSearchEngine implements ItemSearchEngine {
+
+    private static final String SEARCH = "SELECT i.id FROM items i, to_tsquery('simple', ?) q "
+            + "WHERE i.is_available AND i.search_vector @@ q "
+            + "ORDER BY ts_rank(i.search_vector, q) DESC, i.id LIMIT ? OFFSET ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Long> search(String text, int from, int size) {
+        String query = toTsQuery(text);
+        if (query.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return jdbcTemplate.queryForList(SEARCH, Long.class, query, size, from);
+    }
+
+    @Override
+    public boolean matches(String text, String name, String description) {
+        List<String> itemWords = words(Objects.toString(name, "") + " " + Objects.toString(description, ""));
+        List<String> queryWords = words(text);
+        return !queryWords.isEmpty() && queryWords.stream()
+                .allMatch(queryWord -> itemWords.stream().anyMatch(itemWord -> itemWord.startsWith(queryWord)));
+    }
+
+    // every word of the text as a prefix, so "dri" still finds "drill"; anything else is dropped to keep the syntax valid
+    static String toTsQuery(String text) {
+        return words(text).stream()
+                .map(word -> word + ":*")
+                .collect(Collectors.joining(" & "));
+    }
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        for (char c : (text.toLowerCase(Locale.ROOT) + " ").toCharArray()) {
+            if (Character.isLetterOrDigit(c)) {
+                word.append(c);
+            } else if (word.length() > 0) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        return words.stream().distinct().collect(Collectors.toList());
+    }
+}
@@ -38,4 +38,11 @@ public class ItemDto {
 
     private List<CommentDto> comments;
 
+    public ItemDto(Long id, String name, String description, Boolean available, Long requestId) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.available = available;
+        this.requestId = requestId == null ? 0 : requestId;
+    }
 }
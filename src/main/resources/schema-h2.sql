@@ -0,0 +1,63 @@
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    email VARCHAR(512) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS requests (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    description VARCHAR(1000),
+    requestor_id BIGINT,
+    created TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS items (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255),
+    description VARCHAR(1000),
+    is_available BOOLEAN,
+    owner_id BIGINT,
+    request_id BIGINT,
+    last_booking_id BIGINT,
+    next_booking_id BIGINT
+);
+
+CREATE TABLE IF NOT EXISTS bookings (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    start_date TIMESTAMP NOT NULL,
+    end_date TIMESTAMP NOT NULL,
+    item_id BIGINT REFERENCES items (id),
+    booker_id BIGINT REFERENCES users (id),
+    status INTEGER,
+    version BIGINT NOT NULL DEFAULT 0,
+    -- FUTURE (0), CURRENT (1) or PAST (2), advanced by BookingPhaseScheduler
+    phase INTEGER NOT NULL DEFAULT 0,
+    CONSTRAINT bookings_dates_check CHECK (start_date < end_date)
+);
+
+-- H2 has no exclusion constraints; this check stands in for the Postgres bookings_no_overlap one. WAITING (0) and
+-- APPROVED (1) bookings of one item must not overlap
+ALTER TABLE bookings ADD CONSTRAINT IF NOT EXISTS bookings_no_overlap CHECK (bookings.status NOT IN (0, 1)
+    OR NOT EXISTS (SELECT 1 FROM bookings other
+                   WHERE other.item_id = bookings.item_id AND other.id <> bookings.id AND other.status IN (0, 1)
+                     AND other.start_date < bookings.end_date AND other.end_date > bookings.start_date));
+
+CREATE INDEX IF NOT EXISTS bookings_booker_phase_idx ON bookings (booker_id, phase, start_date);
+CREATE INDEX IF NOT EXISTS bookings_item_phase_idx ON bookings (item_id, phase, start_date);
+CREATE INDEX IF NOT EXISTS bookings_phase_start_idx ON bookings (phase, start_date);
+CREATE INDEX IF NOT EXISTS bookings_phase_end_idx ON bookings (phase, end_date);
+
+CREATE TABLE IF NOT EXISTS comments (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    text VARCHAR(1000),
+    item_id BIGINT,
+    author_id BIGINT,
+    created_at TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id VARCHAR(512) PRIMARY KEY,
+    request VARCHAR NOT NULL,
+    response VARCHAR NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
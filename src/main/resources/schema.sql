@@ -0,0 +1,93 @@
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    email VARCHAR(512) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS requests (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    description VARCHAR(1000),
+    requestor_id BIGINT,
+    created TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS items (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255),
+    description VARCHAR(1000),
+    is_available BOOLEAN,
+    owner_id BIGINT,
+    request_id BIGINT,
+    last_booking_id BIGINT,
+    next_booking_id BIGINT
+);
+
+ALTER TABLE items ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+    to_tsvector('simple', coalesce(name, '') || ' ' || coalesce(description, ''))) STORED;
+CREATE INDEX IF NOT EXISTS items_search_vector_idx ON items USING GIN (search_vector) WHERE is_available;
+
+CREATE TABLE IF NOT EXISTS bookings (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    start_date TIMESTAMP NOT NULL,
+    end_date TIMESTAMP NOT NULL,
+    item_id BIGINT REFERENCES items (id),
+    booker_id BIGINT REFERENCES users (id),
+    status INTEGER,
+    version BIGINT NOT NULL DEFAULT 0,
+    -- FUTURE (0), CURRENT (1) or PAST (2), advanced by BookingPhaseScheduler
+    phase INTEGER NOT NULL DEFAULT 0,
+    CONSTRAINT bookings_dates_check CHECK (start_date < end_date),
+    -- WAITING (0) and APPROVED (1) bookings of one item must not overlap
+    CONSTRAINT bookings_no_overlap EXCLUDE USING gist (item_id WITH =, tsrange(start_date, end_date) WITH &&)
+        WHERE (status IN (0, 1))
+);
+
+-- CREATE TABLE IF NOT EXISTS leaves databases created by an earlier version of this script untouched
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+-- existing rows start as FUTURE and are caught up by BookingPhaseScheduler on startup
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS phase INTEGER NOT NULL DEFAULT 0;
+DO '
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = ''bookings_no_overlap'') THEN
+        ALTER TABLE bookings ADD CONSTRAINT bookings_no_overlap
+            EXCLUDE USING gist (item_id WITH =, tsrange(start_date, end_date) WITH &&) WHERE (status IN (0, 1));
+    END IF;
+END';
+
+CREATE INDEX IF NOT EXISTS bookings_booker_phase_idx ON bookings (booker_id, phase, start_date);
+CREATE INDEX IF NOT EXISTS bookings_item_phase_idx ON bookings (item_id, phase, start_date);
+CREATE INDEX IF NOT EXISTS bookings_future_start_idx ON bookings (start_date) WHERE phase = 0;
+CREATE INDEX IF NOT EXISTS bookings_current_end_idx ON bookings (end_date) WHERE phase = 1;
+
+-- items created before the pointer columns get them filled from their APPROVED (1) bookings once
+DO '
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_name = ''items'' AND column_name = ''next_booking_id'') THEN
+        ALTER TABLE items ADD COLUMN last_booking_id BIGINT, ADD COLUMN next_booking_id BIGINT;
+        UPDATE items i SET
+            last_booking_id = (SELECT b.id FROM bookings b
+                               WHERE b.item_id = i.id AND b.status = 1 AND b.start_date < LOCALTIMESTAMP
+                               ORDER BY b.start_date DESC LIMIT 1),
+            next_booking_id = (SELECT b.id FROM bookings b
+                               WHERE b.item_id = i.id AND b.status = 1 AND b.start_date >= LOCALTIMESTAMP
+                               ORDER BY b.start_date LIMIT 1);
+    END IF;
+END';
+
+CREATE TABLE IF NOT EXISTS comments (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    text VARCHAR(1000),
+    item_id BIGINT,
+    author_id BIGINT,
+    created_at TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id VARCHAR(512) PRIMARY KEY,
+    request VARCHAR NOT NULL,
+    response VARCHAR NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,111 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.dto.BookingPeriod;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingAvailabilityIndexTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    @Mock
+    private BookingRepository repository;
+
+    @InjectMocks
+    private BookingAvailabilityIndex index;
+
+    @Test
+    void isAvailableChecksLoadedApprovedBookings() {
+        when(repository.findPeriodsByStatusAndEndAfter(eq(BookingStatus.APPROVED), any())).thenReturn(List.of(
+                new BookingPeriod(1L, 1L, NOW.plusDays(1), NOW.plusDays(2)),
+                new BookingPeriod(2L, 1L, NOW.plusDays(5), NOW.plusDays(6))));
+
+        assertFalse(index.isAvailable(1L, NOW.plusDays(1).plusHours(12), NOW.plusDays(3)));
+        assertTrue(index.isAvailable(1L, NOW.plusDays(2), NOW.plusDays(5)));
+        assertFalse(index.isAvailable(1L, NOW, NOW.plusDays(10)));
+        assertTrue(index.isAvailable(2L, NOW, NOW.plusDays(10)));
+        verify(repository, times(1)).findPeriodsByStatusAndEndAfter(any(), any());
+    }
+
+    @Test
+    void addMakesWindowUnavailable() {
+        when(repository.findPeriodsByStatusAndEndAfter(eq(BookingStatus.APPROVED), any())).thenReturn(List.of());
+        Booking booking = Booking.builder().id(7L).item(Item.builder().id(3L).build())
+                .start(NOW.plusHours(1)).end(NOW.plusHours(2)).build();
+
+        index.add(booking);
+        index.add(booking);
+
+        assertFalse(index.isAvailable(3L, NOW, NOW.plusHours(3)));
+        assertTrue(index.isAvailable(3L, NOW.plusHours(2), NOW.plusHours(3)));
+    }
+
+    @Test
+    void removeFreesWindow() {
+        when(repository.findPeriodsByStatusAndEndAfter(eq(BookingStatus.APPROVED), any())).thenReturn(List.of(
+                new BookingPeriod(1L, 1L, NOW.plusDays(1), NOW.plusDays(2)),
+                new BookingPeriod(2L, 1L, NOW.plusDays(3), NOW.plusDays(4))));
+        index.isAvailable(1L, NOW, NOW.plusDays(1));
+
+        index.remove(Booking.builder().id(1L).item(Item.builder().id(1L).build()).build());
+
+        assertTrue(index.isAvailable(1L, NOW, NOW.plusDays(3)));
+        assertFalse(index.isAvailable(1L, NOW, NOW.plusDays(5)));
+    }
+
+    @Test
+    void pruneDropsEndedBookings() {
+        when(repository.findPeriodsByStatusAndEndAfter(eq(BookingStatus.APPROVED), any())).thenReturn(List.of(
+                new BookingPeriod(1L, 1L, NOW.plusDays(1), NOW.plusDays(5)),
+                new BookingPeriod(2L, 1L, NOW.plusDays(2), NOW.plusDays(3)),
+                new BookingPeriod(3L, 2L, NOW.plusDays(1), NOW.plusDays(2))));
+        index.isAvailable(1L, NOW, NOW.plusDays(1));
+
+        assertEquals(0, index.prune(NOW.plusDays(1)));
+        assertEquals(2, index.prune(NOW.plusDays(4)));
+
+        assertFalse(index.isAvailable(1L, NOW.plusDays(4), NOW.plusDays(6)));
+        assertTrue(index.isAvailable(1L, NOW.plusDays(5), NOW.plusDays(6)));
+        assertTrue(index.isAvailable(2L, NOW, NOW.plusDays(6)));
+        assertEquals(1, index.prune(NOW.plusDays(5)));
+    }
+
+    @Test
+    void matchesLinearScan() {
+        Random random = new Random(7);
+        List<BookingPeriod> periods = new ArrayList<>();
+        for (long id = 0; id < 500; id++) {
+            LocalDateTime start = NOW.plusHours(random.nextInt(1_000));
+            periods.add(new BookingPeriod(id, id % 10, start, start.plusHours(1 + random.nextInt(100))));
+        }
+        when(repository.findPeriodsByStatusAndEndAfter(eq(BookingStatus.APPROVED), any())).thenReturn(periods);
+
+        for (int i = 0; i < 2_000; i++) {
+            long itemId = random.nextInt(11);
+            LocalDateTime from = NOW.plusHours(random.nextInt(1_100));
+            LocalDateTime to = from.plusHours(1 + random.nextInt(50));
+            boolean expected = periods.stream().noneMatch(period -> period.getItemId() == itemId
+                    && period.getStart().isBefore(to) && period.getEnd().isAfter(from));
+            assertEquals(expected, index.isAvailable(itemId, from, to));
+        }
+    }
+}
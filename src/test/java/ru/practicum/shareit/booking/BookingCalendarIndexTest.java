@@ -0,0 +1,118 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.dto.BookingPeriod;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingCalendarIndexTest {
+
+    private static final YearMonth JANUARY = YearMonth.of(2030, 1);
+
+    @Mock
+    private BookingRepository repository;
+
+    @InjectMocks
+    private BookingCalendarIndex calendarIndex;
+
+    @Test
+    void getMonthMarksCoveredHours() {
+        when(repository.findPeriodsByItemIdAndStatus(1L, BookingStatus.APPROVED)).thenReturn(List.of(
+                new BookingPeriod(1L, 1L, JANUARY.atDay(2).atTime(10, 30), JANUARY.atDay(2).atTime(12, 0)),
+                new BookingPeriod(2L, 1L, JANUARY.atEndOfMonth().atTime(23, 0), JANUARY.atEndOfMonth().atTime(23, 0)
+                        .plusHours(25))));
+
+        BitSet january = calendarIndex.getMonth(1L, JANUARY);
+        BitSet february = calendarIndex.getMonth(1L, JANUARY.plusMonths(1));
+
+        assertEquals(bits(34, 35, 30 * 24 + 23), january);
+        assertEquals(bits(range(0, 24)), february);
+        assertTrue(calendarIndex.getMonth(1L, JANUARY.plusMonths(2)).isEmpty());
+        verify(repository, times(1)).findPeriodsByItemIdAndStatus(anyLong(), any());
+    }
+
+    @Test
+    void loadRacingACommittedBookingIsDiscarded() {
+        Booking committed = booking(1L, JANUARY.atDay(1).atTime(5, 0), JANUARY.atDay(1).atTime(6, 0));
+        when(repository.findPeriodsByItemIdAndStatus(1L, BookingStatus.APPROVED))
+                .thenAnswer(invocation -> {
+                    calendarIndex.add(committed);
+                    return List.of();
+                })
+                .thenReturn(List.of(new BookingPeriod(1L, 1L, committed.getStart(), committed.getEnd())));
+
+        assertEquals(bits(5), calendarIndex.getMonth(1L, JANUARY));
+        verify(repository, times(2)).findPeriodsByItemIdAndStatus(anyLong(), any());
+    }
+
+    @Test
+    void addMarksLoadedCalendarsOnly() {
+        when(repository.findPeriodsByItemIdAndStatus(1L, BookingStatus.APPROVED)).thenReturn(List.of());
+        calendarIndex.getMonth(1L, JANUARY);
+
+        calendarIndex.add(booking(1L, JANUARY.atDay(1).atTime(0, 0), JANUARY.atDay(1).atTime(1, 0)));
+        calendarIndex.add(booking(2L, JANUARY.atDay(1).atTime(0, 0), JANUARY.atDay(1).atTime(1, 0)));
+
+        assertEquals(bits(0), calendarIndex.getMonth(1L, JANUARY));
+        verify(repository, never()).findPeriodsByItemIdAndStatus(eq(2L), any());
+    }
+
+    @Test
+    void pruneDropsPastDays() {
+        YearMonth february = JANUARY.plusMonths(1);
+        when(repository.findPeriodsByItemIdAndStatus(1L, BookingStatus.APPROVED)).thenReturn(List.of(
+                new BookingPeriod(1L, 1L, JANUARY.atDay(31).atTime(22, 0), february.atDay(2).atTime(1, 0))));
+        calendarIndex.getMonth(1L, JANUARY);
+
+        calendarIndex.prune(february.atDay(2).atTime(0, 30));
+        calendarIndex.add(booking(1L, february.atDay(1).atTime(10, 0), february.atDay(2).atTime(2, 0)));
+
+        assertTrue(calendarIndex.getMonth(1L, JANUARY).isEmpty());
+        assertEquals(bits(24, 25), calendarIndex.getMonth(1L, february));
+    }
+
+    @Test
+    void getMonthReturnsCopy() {
+        when(repository.findPeriodsByItemIdAndStatus(1L, BookingStatus.APPROVED)).thenReturn(List.of(
+                new BookingPeriod(1L, 1L, JANUARY.atDay(1).atTime(5, 0), JANUARY.atDay(1).atTime(6, 0))));
+
+        calendarIndex.getMonth(1L, JANUARY).clear();
+
+        assertEquals(bits(5), calendarIndex.getMonth(1L, JANUARY));
+    }
+
+    private Booking booking(long itemId, LocalDateTime start, LocalDateTime end) {
+        return Booking.builder().item(Item.builder().id(itemId).build()).start(start).end(end).build();
+    }
+
+    private static int[] range(int from, int to) {
+        int[] values = new int[to - from];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = from + i;
+        }
+        return values;
+    }
+
+    private static BitSet bits(int... indexes) {
+        BitSet bits = new BitSet();
+        for (int index : indexes) {
+            bits.set(index);
+        }
+        return bits;
+    }
+}
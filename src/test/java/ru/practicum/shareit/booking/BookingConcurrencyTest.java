@@ -0,0 +1,315 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResult;
+import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.exceptions.ConflictException;
+import ru.practicum.shareit.exceptions.ErrorHandler;
+import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+
+@SpringBootTest
+@Slf4j
+class BookingConcurrencyTest {
+
+    private static final int THREADS = 200;
+
+    private static final int WINDOWS = 4;
+
+    private static final int APPROVAL_THREADS = 64;
+
+    private static final int OTHER_ITEMS = 4;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookingItemLocks itemLocks;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @SpyBean
+    private BookingExpiryService expiryService;
+
+    private User owner;
+
+    private User booker;
+
+    private Item item;
+
+    private final List<Item> otherItems = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(User.builder().name("Owner").email("owner@concurrency.test").build());
+        booker = userRepository.save(User.builder().name("Booker").email("booker@concurrency.test").build());
+        item = itemRepository.save(Item.builder().name("Drill").description("Cordless drill")
+                .available(true).owner(owner.getId()).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        otherItems.add(item);
+        for (Item created : otherItems) {
+            bookingRepository.deleteAll(bookingRepository.findBookingsByItemIdAndStatusInAndEndAfter(created.getId(),
+                    List.of(BookingStatus.values()), LocalDateTime.now()));
+            itemRepository.delete(created);
+        }
+        userRepository.delete(booker);
+        userRepository.delete(owner);
+    }
+
+    @Test
+    void parallelCreatesHaveOneWinnerPerWindow() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            BookingRequestDto bookingDto = new BookingRequestDto();
+            bookingDto.setItemId(item.getId());
+            bookingDto.setStart(start.plusHours(2L * (i % WINDOWS)));
+            bookingDto.setEnd(start.plusHours(2L * (i % WINDOWS) + 1));
+            results.add(executor.submit(() -> {
+                startSignal.await();
+                try {
+                    bookingService.createBooking(booker.getId(), bookingDto);
+                    return true;
+                } catch (ConflictException e) {
+                    return false;
+                }
+            }));
+        }
+        startSignal.countDown();
+
+        int created = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                created++;
+            }
+        }
+        executor.shutdown();
+
+        List<Booking> bookings = bookingRepository.findBookingsByItemIdAndStatusInAndEndAfter(item.getId(),
+                List.of(BookingStatus.WAITING), LocalDateTime.now());
+        assertEquals(WINDOWS, created);
+        assertEquals(WINDOWS, bookings.size());
+        assertEquals(WINDOWS, bookings.stream().map(Booking::getStart).distinct().count());
+    }
+
+    @Test
+    void parallelApprovalsHaveOneWinner() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingRequestDto bookingDto = new BookingRequestDto();
+        bookingDto.setItemId(item.getId());
+        bookingDto.setStart(start);
+        bookingDto.setEnd(start.plusHours(1));
+        long bookingId = bookingService.createBooking(booker.getId(), bookingDto).getId();
+
+        ExecutorService executor = Executors.newFixedThreadPool(APPROVAL_THREADS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < APPROVAL_THREADS; i++) {
+            results.add(executor.submit(() -> {
+                startSignal.await();
+                try {
+                    bookingService.setBookingApproval(owner.getId(), bookingId, true);
+                    return true;
+                } catch (ValidationException e) {
+                    return false;
+                }
+            }));
+        }
+        long started = System.nanoTime();
+        startSignal.countDown();
+
+        int approved = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                approved++;
+            }
+        }
+        executor.shutdown();
+        log.info("{} concurrent approvals finished in {} ms", APPROVAL_THREADS,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        Booking booking = bookingRepository.findById(bookingId).orElseThrow();
+        assertEquals(1, approved);
+        assertEquals(BookingStatus.APPROVED, booking.getStatus());
+        assertEquals(1, booking.getVersion());
+    }
+
+    @Test
+    void approvalsOnOtherItemsDoNotWaitForALockedItem() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<Long> bookingIds = new ArrayList<>();
+        while (bookingIds.size() < OTHER_ITEMS) {
+            Item other = itemRepository.save(Item.builder().name("Saw").description("Circular saw")
+                    .available(true).owner(owner.getId()).build());
+            otherItems.add(other);
+            if (itemLocks.stripe(other.getId()) == itemLocks.stripe(item.getId())) {
+                continue;
+            }
+            BookingRequestDto bookingDto = new BookingRequestDto();
+            bookingDto.setItemId(other.getId());
+            bookingDto.setStart(start);
+            bookingDto.setEnd(start.plusHours(1));
+            bookingIds.add(bookingService.createBooking(booker.getId(), bookingDto).getId());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(APPROVAL_THREADS + 1);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch unlock = new CountDownLatch(1);
+        Future<?> holder = executor.submit(() -> itemLocks.withItemLock(item.getId(), () -> {
+            locked.countDown();
+            try {
+                return unlock.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }));
+        locked.await();
+
+        // every approval runs while another item's stripe is held, so they finish only if items do not serialize
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < APPROVAL_THREADS; i++) {
+            long bookingId = bookingIds.get(i % bookingIds.size());
+            results.add(executor.submit(() -> {
+                try {
+                    bookingService.setBookingApproval(owner.getId(), bookingId, true);
+                    return true;
+                } catch (ValidationException e) {
+                    return false;
+                }
+            }));
+        }
+
+        int approved = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(10, TimeUnit.SECONDS)) {
+                approved++;
+            }
+        }
+        unlock.countDown();
+        holder.get();
+        executor.shutdown();
+
+        assertEquals(bookingIds.size(), approved);
+        for (long bookingId : bookingIds) {
+            assertEquals(BookingStatus.APPROVED, bookingRepository.findById(bookingId).orElseThrow().getStatus());
+        }
+    }
+
+    @Test
+    void rejectedBookingCannotBeApprovedOverACompetingBooking() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingRequestDto bookingDto = new BookingRequestDto();
+        bookingDto.setItemId(item.getId());
+        bookingDto.setStart(start);
+        bookingDto.setEnd(start.plusHours(1));
+        long rejectedId = bookingService.createBooking(booker.getId(), bookingDto).getId();
+        bookingService.setBookingApproval(owner.getId(), rejectedId, false);
+
+        long competingId = bookingService.createBooking(booker.getId(), bookingDto).getId();
+        bookingService.setBookingApproval(owner.getId(), competingId, true);
+
+        assertThrows(ValidationException.class, () -> bookingService.setBookingApproval(owner.getId(), rejectedId,
+                true));
+        assertEquals(List.of(400), bookingService.setBookingApprovals(owner.getId(),
+                        List.of(new BookingApprovalDto(rejectedId, true))).stream()
+                .map(BookingBatchResult::getStatus)
+                .collect(Collectors.toList()));
+        assertEquals(BookingStatus.REJECTED, bookingRepository.findById(rejectedId).orElseThrow().getStatus());
+        assertEquals(BookingStatus.APPROVED, bookingRepository.findById(competingId).orElseThrow().getStatus());
+    }
+
+    @Test
+    void overlapMissedByTheIndexIsRejectedByTheSchema() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        BookingRequestDto bookingDto = new BookingRequestDto();
+        bookingDto.setItemId(item.getId());
+        bookingDto.setStart(start);
+        bookingDto.setEnd(start.plusHours(2));
+        bookingService.createBooking(booker.getId(), bookingDto);
+        // inserted behind the interval index's back, so only the database can notice the overlap
+        jdbcTemplate.update("INSERT INTO bookings (start_date, end_date, item_id, booker_id, status) "
+                        + "VALUES (?, ?, ?, ?, 0)", Timestamp.valueOf(start.plusHours(3)),
+                Timestamp.valueOf(start.plusHours(5)), item.getId(), booker.getId());
+
+        bookingDto.setStart(start.plusHours(4));
+        bookingDto.setEnd(start.plusHours(6));
+        DataIntegrityViolationException e = assertThrows(DataIntegrityViolationException.class,
+                () -> bookingService.createBooking(booker.getId(), bookingDto));
+
+        assertEquals(HttpStatus.CONFLICT, new ErrorHandler().handleDataIntegrityViolationException(e).getStatusCode());
+        assertEquals(2, bookingRepository.findBookingsByItemIdAndStatusInAndEndAfter(item.getId(),
+                List.of(BookingStatus.WAITING), LocalDateTime.now()).size());
+    }
+
+    @Test
+    void chunkFailingAfterInsertReleasesItsReservations() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        List<BookingRequestDto> bookingDtos = List.of(
+                BookingRequestDto.builder().itemId(item.getId()).start(start).end(start.plusHours(1)).build(),
+                BookingRequestDto.builder().itemId(item.getId()).start(start.plusHours(2)).end(start.plusHours(3))
+                        .build());
+        // fails after the insert, while the second booking is still reserved under its unsaved id
+        doThrow(new IllegalStateException("Expiry queue is unavailable")).when(expiryService).schedule(any());
+
+        List<BookingBatchResult> results = bookingService.createBookings(booker.getId(), bookingDtos);
+        reset(expiryService);
+
+        assertEquals(List.of(500, 500), results.stream().map(BookingBatchResult::getStatus)
+                .collect(Collectors.toList()));
+
+        assertTrue(bookingRepository.findBookingsByItemIdAndStatusInAndEndAfter(item.getId(),
+                List.of(BookingStatus.WAITING), LocalDateTime.now()).isEmpty());
+        for (BookingRequestDto bookingDto : bookingDtos) {
+            bookingService.createBooking(booker.getId(), bookingDto);
+        }
+    }
+}
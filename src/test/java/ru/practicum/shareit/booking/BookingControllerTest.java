@@ -6,24 +6,40 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResult;
+import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.idempotency.IdempotencyStore;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 
 import static org.hamcrest.text.MatchesPattern.matchesPattern;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(controllers = BookingController.class)
+@Import(IdempotencyStore.class)
 class BookingControllerTest {
 
     @Autowired
@@ -73,6 +89,96 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$.end", matchesPattern("\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}\\.\\d{1,9}")));
     }
 
+    @Test
+    void createBookingReplaysResponseForSameIdempotencyKey() throws Exception {
+        booking.setId(7L);
+        when(bookingService.createBooking(anyLong(), any(BookingRequestDto.class))).thenReturn(booking);
+        String content = mapper.writeValueAsString(BookingRequestDto.builder()
+                .itemId(1L)
+                .start(booking.getStart())
+                .end(booking.getEnd())
+                .build());
+
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(post("/bookings")
+                            .header("X-Sharer-User-Id", "1")
+                            .header(IdempotencyStore.IDEMPOTENCY_KEY, "booking-key")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(content))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.id").value(7L));
+        }
+
+        verify(bookingService, times(1)).createBooking(anyLong(), any(BookingRequestDto.class));
+    }
+
+    @Test
+    void createBookingWithReusedIdempotencyKeyAndDifferentBody() throws Exception {
+        booking.setId(8L);
+        when(bookingService.createBooking(anyLong(), any(BookingRequestDto.class))).thenReturn(booking);
+        BookingRequestDto bookingDto = BookingRequestDto.builder()
+                .itemId(1L)
+                .start(booking.getStart())
+                .end(booking.getEnd())
+                .build();
+
+        mvc.perform(post("/bookings")
+                        .header("X-Sharer-User-Id", "1")
+                        .header(IdempotencyStore.IDEMPOTENCY_KEY, "reused-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(bookingDto)))
+                .andExpect(status().isCreated());
+
+        bookingDto.setItemId(2L);
+        mvc.perform(post("/bookings")
+                        .header("X-Sharer-User-Id", "1")
+                        .header(IdempotencyStore.IDEMPOTENCY_KEY, "reused-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(bookingDto)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void createBookings() throws Exception {
+        BookingRequestDto bookingDto = BookingRequestDto.builder()
+                .itemId(1L)
+                .start(booking.getStart())
+                .end(booking.getEnd())
+                .build();
+        when(bookingService.createBookings(eq(1L), anyList())).thenReturn(List.of(
+                BookingBatchResult.builder().status(201).booking(BookingMapper.mapToBookingDto(booking)).build(),
+                BookingBatchResult.builder().status(409).error("Item with ID 1 is already booked").build()));
+
+        mvc.perform(post("/bookings/batch")
+                        .header("X-Sharer-User-Id", "1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(List.of(bookingDto, bookingDto))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(201))
+                .andExpect(jsonPath("$[0].booking.status").value("WAITING"))
+                .andExpect(jsonPath("$[0].error").doesNotExist())
+                .andExpect(jsonPath("$[1].status").value(409))
+                .andExpect(jsonPath("$[1].booking").doesNotExist());
+    }
+
+    @Test
+    void setBookingApprovals() throws Exception {
+        List<BookingApprovalDto> approvals = List.of(new BookingApprovalDto(1L, true), new BookingApprovalDto(2L, false));
+        when(bookingService.setBookingApprovals(1L, approvals)).thenReturn(List.of(
+                BookingBatchResult.builder().status(200).booking(BookingMapper.mapToBookingDto(booking)).build(),
+                BookingBatchResult.builder().status(404).error("Booking with ID 2 is not found").build()));
+
+        mvc.perform(patch("/bookings/approval")
+                        .header("X-Sharer-User-Id", "1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(approvals)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(200))
+                .andExpect(jsonPath("$[0].booking.status").value("WAITING"))
+                .andExpect(jsonPath("$[1].status").value(404))
+                .andExpect(jsonPath("$[1].error").value("Booking with ID 2 is not found"));
+    }
+
     @Test
     void setBookingApproval() throws Exception {
         long bookingId = 1L;
@@ -137,6 +243,60 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$").isArray());
     }
 
+    @Test
+    void getBookingSummaryByOwnerId() throws Exception {
+        when(bookingService.getBookingSummaryByOwnerId(1L)).thenReturn(new BookingSummaryDto(6, 1, 2, 3, 2, 1));
+
+        mvc.perform(get("/bookings/owner/summary")
+                        .header("X-Sharer-User-Id", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.all").value(6))
+                .andExpect(jsonPath("$.future").value(3))
+                .andExpect(jsonPath("$.rejected").value(1));
+    }
+
+    @Test
+    void exportBookingsByOwnerId() throws Exception {
+        Booking second = new Booking();
+        second.setId(2L);
+        second.setStart(booking.getStart());
+        second.setEnd(booking.getEnd());
+        second.setItem(booking.getItem());
+        second.setBooker(booking.getBooker());
+        second.setStatus(BookingStatus.APPROVED);
+        booking.setId(1L);
+        doAnswer(invocation -> {
+            Consumer<Booking> consumer = invocation.getArgument(1);
+            consumer.accept(booking);
+            consumer.accept(second);
+            return null;
+        }).when(bookingService).exportBookingsByOwnerId(eq(1L), any());
+
+        MvcResult result = mvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String[] lines = mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BookingController.NDJSON))
+                .andReturn().getResponse().getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(1L, mapper.readValue(lines[0], BookingDto.class).getId());
+        assertEquals(BookingStatus.APPROVED, mapper.readValue(lines[1], BookingDto.class).getStatus());
+    }
+
+    @Test
+    void getBookingSummaryByBookerId() throws Exception {
+        when(bookingService.getBookingSummaryByBookerId(2L)).thenReturn(new BookingSummaryDto(1, 0, 0, 1, 1, 0));
+
+        mvc.perform(get("/bookings/summary")
+                        .header("X-Sharer-User-Id", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.all").value(1))
+                .andExpect(jsonPath("$.waiting").value(1));
+    }
+
     @Test
     void findBookingsByStateAndBookerId() throws Exception {
         long userId = 1L;
@@ -153,4 +313,71 @@ class BookingControllerTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$").isArray());
     }
+
+    @Test
+    void findBookingsByStateAndOwnerIdWithCursor() throws Exception {
+        long userId = 1L;
+        booking.setId(7L);
+        when(bookingService.findBookingsByStateAndOwnerId(eq(userId), eq("ALL"), eq(""), eq(1)))
+                .thenReturn(new SliceImpl<>(List.of(booking), PageRequest.of(0, 1), true));
+
+        mvc.perform(get("/bookings/owner")
+                        .header("X-Sharer-User-Id", String.valueOf(userId))
+                        .param("size", "1")
+                        .param("cursor", "")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(BookingController.NEXT_CURSOR, BookingCursor.encode(booking)))
+                .andExpect(jsonPath("$[0].id").value(7L));
+    }
+
+    @Test
+    void findBookingsByStateAndBookerIdWithCursorLastPage() throws Exception {
+        long userId = 1L;
+        when(bookingService.findBookingsByStateAndBookerId(eq(userId), eq("ALL"), eq("abc"), eq(20)))
+                .thenReturn(new SliceImpl<>(List.of(booking)));
+
+        mvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", String.valueOf(userId))
+                        .param("cursor", "abc")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(BookingController.NEXT_CURSOR))
+                .andExpect(jsonPath("$").isArray());
+    }
+
+    @Test
+    void getBookingWithSummaryItem() throws Exception {
+        long userId = 1L;
+        when(bookingService.getBookingByIdAndBookerOrOwner(eq(1L), eq(userId))).thenReturn(booking);
+
+        mvc.perform(get("/bookings/{bookingId}", 1L)
+                        .header("X-Sharer-User-Id", String.valueOf(userId)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.item.name").value("Test Item 1"))
+                .andExpect(jsonPath("$.item.description").doesNotExist())
+                .andExpect(jsonPath("$.itemDetails").doesNotExist());
+    }
+
+    @Test
+    void findBookingsByStateAndOwnerIdWithExpandedItem() throws Exception {
+        long userId = 1L;
+        when(bookingService.findBookingsByStateAndOwnerId(eq(userId), eq("ALL"), eq(0), eq(20)))
+                .thenReturn(List.of(booking));
+
+        mvc.perform(get("/bookings/owner")
+                        .header("X-Sharer-User-Id", String.valueOf(userId))
+                        .param("expand", BookingController.EXPAND_ITEM))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].item.name").value("Test Item 1"))
+                .andExpect(jsonPath("$[0].itemDetails.description").value("Test Description 1"));
+    }
+
+    @Test
+    void findBookingsByStateAndBookerIdWithUnknownExpand() throws Exception {
+        mvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", "1")
+                        .param("expand", "owner"))
+                .andExpect(status().isBadRequest());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exceptions.ValidationException;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BookingCursorTest {
+
+    @Test
+    void encodeAndDecode() {
+        Booking booking = new Booking();
+        booking.setId(42L);
+        booking.setStart(LocalDateTime.of(2030, 5, 17, 10, 15, 30, 123456000));
+
+        BookingCursor cursor = BookingCursor.decode(BookingCursor.encode(booking));
+
+        assertEquals(booking.getStart(), cursor.getStart());
+        assertEquals(42L, cursor.getId());
+    }
+
+    @Test
+    void decodeInvalidCursor() {
+        assertThrows(ValidationException.class, () -> BookingCursor.decode("%%%"));
+        assertThrows(ValidationException.class, () -> BookingCursor.decode("bm8tc2VwYXJhdG9y"));
+    }
+}
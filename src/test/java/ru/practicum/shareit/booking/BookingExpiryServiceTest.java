@@ -0,0 +1,126 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingPeriod;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingExpiryServiceTest {
+
+    @Mock
+    private BookingRepository repository;
+
+    @Mock
+    private BookingIntervalIndex intervalIndex;
+
+    @Mock
+    private BookingAvailabilityIndex availabilityIndex;
+
+    @InjectMocks
+    private BookingExpiryService expiryService;
+
+    @Test
+    void expireRebuildsFromWaitingBookingsAndCancelsStarted() {
+        LocalDateTime now = LocalDateTime.now();
+        Booking started = Booking.builder().id(1L).start(now.minusMinutes(5)).end(now.plusHours(1))
+                .status(BookingStatus.CANCELED).build();
+        when(repository.findPeriodsByStatus(BookingStatus.WAITING)).thenReturn(List.of(
+                new BookingPeriod(1L, 1L, started.getStart(), started.getEnd()),
+                new BookingPeriod(2L, 1L, now.plusDays(1), now.plusDays(2))));
+        when(repository.updateStatusByIdInAndStatus(List.of(1L), BookingStatus.WAITING, BookingStatus.CANCELED))
+                .thenReturn(1);
+        when(repository.findBookingsByIdInAndStatus(List.of(1L), BookingStatus.CANCELED)).thenReturn(List.of(started));
+
+        assertEquals(1, expiryService.expire(now.plusSeconds(1)));
+        verify(intervalIndex).release(started);
+        verify(availabilityIndex).remove(started);
+        assertEquals(1, expiryService.pending());
+
+        assertEquals(0, expiryService.expire(now.plusSeconds(2)));
+        verify(repository, times(1)).findPeriodsByStatus(any());
+    }
+
+    @Test
+    void expireSkipsBookingsDecidedInTheMeantime() {
+        LocalDateTime now = LocalDateTime.now();
+        when(repository.findPeriodsByStatus(BookingStatus.WAITING)).thenReturn(List.of(
+                new BookingPeriod(1L, 1L, now.minusMinutes(1), now.plusHours(1))));
+        when(repository.updateStatusByIdInAndStatus(List.of(1L), BookingStatus.WAITING, BookingStatus.CANCELED))
+                .thenReturn(0);
+
+        assertEquals(0, expiryService.expire(now.plusSeconds(1)));
+        verify(repository, never()).findBookingsByIdInAndStatus(any(), any());
+        verifyNoInteractions(intervalIndex, availabilityIndex);
+    }
+
+    @Test
+    void scheduledBookingExpiresAtItsStart() {
+        LocalDateTime now = LocalDateTime.now();
+        when(repository.findPeriodsByStatus(BookingStatus.WAITING)).thenReturn(List.of());
+        expiryService.expire(now);
+
+        expiryService.schedule(Booking.builder().id(3L).start(now.plusMinutes(10)).end(now.plusHours(1)).build());
+
+        assertEquals(1, expiryService.pending());
+        expiryService.expire(now.plusMinutes(5));
+        verify(repository, never()).updateStatusByIdInAndStatus(any(), any(), any());
+        expiryService.expire(now.plusMinutes(10).plusSeconds(1));
+        verify(repository).updateStatusByIdInAndStatus(List.of(3L), BookingStatus.WAITING, BookingStatus.CANCELED);
+    }
+
+    @Test
+    void expireReschedulesBookingsWhenCancellationFails() {
+        LocalDateTime now = LocalDateTime.now();
+        when(repository.findPeriodsByStatus(BookingStatus.WAITING)).thenReturn(List.of(
+                new BookingPeriod(1L, 1L, now.minusMinutes(1), now.plusHours(1))));
+        when(repository.updateStatusByIdInAndStatus(List.of(1L), BookingStatus.WAITING, BookingStatus.CANCELED))
+                .thenThrow(new IllegalStateException("Connection is closed"))
+                .thenReturn(0);
+
+        assertThrows(IllegalStateException.class, () -> expiryService.expire(now.plusSeconds(1)));
+
+        assertEquals(1, expiryService.pending());
+        assertEquals(0, expiryService.expire(now.plusSeconds(2)));
+        verify(repository, times(1)).updateStatusByIdInAndStatus(any(), any(), any());
+        expiryService.expire(now.plusSeconds(7));
+        verify(repository, times(2)).updateStatusByIdInAndStatus(List.of(1L), BookingStatus.WAITING,
+                BookingStatus.CANCELED);
+        assertEquals(0, expiryService.pending());
+    }
+
+    @Test
+    void expireReschedulesBookingsWhenTransactionRollsBack() {
+        LocalDateTime now = LocalDateTime.now();
+        when(repository.findPeriodsByStatus(BookingStatus.WAITING)).thenReturn(List.of(
+                new BookingPeriod(1L, 1L, now.minusMinutes(1), now.plusHours(1))));
+        when(repository.updateStatusByIdInAndStatus(List.of(1L), BookingStatus.WAITING, BookingStatus.CANCELED))
+                .thenReturn(0);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            expiryService.expire(now.plusSeconds(1));
+            assertEquals(0, expiryService.pending());
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(1, expiryService.pending());
+    }
+}
@@ -0,0 +1,107 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.exceptions.ConflictException;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingIntervalIndexTest {
+
+    @Mock
+    private BookingRepository repository;
+
+    @InjectMocks
+    private BookingIntervalIndex index;
+
+    private final LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+    private final Item item = Item.builder().id(1L).build();
+
+    @Test
+    void reserveRejectsOverlapWithStoredBooking() {
+        Booking stored = booking(1L, start, start.plusHours(2));
+        when(repository.findBookingsByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any()))
+                .thenReturn(List.of(stored));
+
+        assertThrows(ConflictException.class, () -> index.reserve(booking(2L, start.plusHours(1), start.plusHours(3))));
+        index.reserve(booking(3L, start.plusHours(2), start.plusHours(3)));
+
+        assertFalse(index.isAvailable(1L, start.plusHours(2), start.plusHours(4)));
+        verify(repository, times(1)).findBookingsByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any());
+    }
+
+    @Test
+    void releaseFreesInterval() {
+        when(repository.findBookingsByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any()))
+                .thenReturn(List.of());
+        Booking booking = booking(1L, start, start.plusHours(2));
+        index.reserve(booking);
+
+        index.release(booking);
+
+        assertTrue(index.isAvailable(1L, start, start.plusHours(2)));
+    }
+
+    private Booking booking(long id, LocalDateTime start, LocalDateTime end) {
+        return Booking.builder().id(id).item(item).start(start).end(end).status(BookingStatus.WAITING).build();
+    }
+
+    @Test
+    void reservePrunesEndedBookings() {
+        Booking ended = booking(1L, start.minusDays(3), start.minusDays(2));
+        when(repository.findBookingsByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any()))
+                .thenReturn(List.of(ended));
+        assertFalse(index.isAvailable(1L, ended.getStart(), ended.getEnd()));
+
+        index.reserve(booking(2L, start, start.plusHours(1)));
+
+        assertTrue(index.isAvailable(1L, ended.getStart(), ended.getEnd()));
+    }
+
+    @Test
+    void loadRacingARemovalIsDiscarded() {
+        Booking released = booking(1L, start, start.plusHours(2));
+        when(repository.findBookingsByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any()))
+                .thenAnswer(invocation -> {
+                    index.release(released);
+                    return List.of(released);
+                })
+                .thenReturn(List.of());
+
+        assertTrue(index.isAvailable(1L, start, start.plusHours(2)));
+        verify(repository, times(2)).findBookingsByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any());
+    }
+
+    @Test
+    void insertedRekeysUnsavedReservation() {
+        when(repository.findBookingsByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any()))
+                .thenReturn(List.of());
+        Booking first = booking(0L, start, start.plusHours(2));
+        Booking second = booking(0L, start.plusHours(2), start.plusHours(3));
+        index.reserve(first);
+        index.reserve(second);
+        assertThrows(ConflictException.class, () -> index.reserve(booking(0L, start.plusHours(1), start.plusHours(3))));
+
+        first.setId(7L);
+        index.inserted(first);
+        index.release(first);
+
+        assertTrue(index.isAvailable(1L, start, start.plusHours(2)));
+        assertFalse(index.isAvailable(1L, start.plusHours(2), start.plusHours(3)));
+    }
+}
@@ -0,0 +1,79 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingIntervalTreeTest {
+
+    private final LocalDateTime base = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    @Test
+    void overlapsIsHalfOpen() {
+        BookingIntervalTree tree = new BookingIntervalTree();
+        tree.add(1L, base.plusHours(2), base.plusHours(4));
+
+        assertTrue(tree.overlaps(base.plusHours(3), base.plusHours(5)));
+        assertTrue(tree.overlaps(base.plusHours(1), base.plusHours(5)));
+        assertTrue(tree.overlaps(base.plusHours(2), base.plusHours(3)));
+        assertFalse(tree.overlaps(base, base.plusHours(2)));
+        assertFalse(tree.overlaps(base.plusHours(4), base.plusHours(6)));
+    }
+
+    @Test
+    void removeFreesInterval() {
+        BookingIntervalTree tree = new BookingIntervalTree();
+        tree.add(1L, base, base.plusHours(1));
+        tree.add(2L, base, base.plusHours(2));
+        tree.remove(2L, base);
+
+        assertEquals(1, tree.size());
+        assertFalse(tree.overlaps(base.plusHours(1), base.plusHours(2)));
+        assertTrue(tree.overlaps(base, base.plusMinutes(30)));
+    }
+
+    @Test
+    void removeEndedByDropsOnlyEndedIntervals() {
+        BookingIntervalTree tree = new BookingIntervalTree();
+        for (long id = 1; id <= 100; id++) {
+            tree.add(id, base.plusHours(id), base.plusHours(id + 2));
+        }
+
+        assertEquals(49, tree.removeEndedBy(base.plusHours(51)));
+
+        assertEquals(51, tree.size());
+        assertFalse(tree.overlaps(base, base.plusHours(50)));
+        assertTrue(tree.overlaps(base.plusHours(50), base.plusHours(51)));
+    }
+
+    @Test
+    void overlapsMatchesLinearScan() {
+        BookingIntervalTree tree = new BookingIntervalTree();
+        List<LocalDateTime[]> intervals = new ArrayList<>();
+        Random random = new Random(42);
+        for (long id = 1; id <= 10_000; id++) {
+            LocalDateTime start = base.plusHours(random.nextInt(100_000));
+            LocalDateTime end = start.plusHours(1 + random.nextInt(48));
+            tree.add(id, start, end);
+            intervals.add(new LocalDateTime[]{start, end});
+        }
+        for (int i = 0; i < 1_000; i += 2) {
+            tree.remove(i + 1, intervals.get(i)[0]);
+            intervals.set(i, null);
+        }
+
+        assertEquals(9_500, tree.size());
+        for (int i = 0; i < 2_000; i++) {
+            LocalDateTime start = base.plusHours(random.nextInt(100_000));
+            LocalDateTime end = start.plusHours(1 + random.nextInt(12));
+            boolean expected = intervals.stream()
+                    .anyMatch(interval -> interval != null && interval[0].isBefore(end) && interval[1].isAfter(start));
+            assertEquals(expected, tree.overlaps(start, end));
+        }
+    }
+}
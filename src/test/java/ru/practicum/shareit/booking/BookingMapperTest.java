@@ -2,10 +2,11 @@ package ru.practicum.shareit.booking;
 
 import org.junit.jupiter.api.Test;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingItemSummary;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
-import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.comment.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
@@ -16,6 +17,7 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 class BookingMapperTest {
 
@@ -51,7 +53,7 @@ class BookingMapperTest {
         UserDto booker = new UserDto();
         booker.setId(1L);
 
-        ItemDto item = new ItemDto();
+        BookingItemSummary item = new BookingItemSummary();
         item.setId(2L);
 
         BookingDto booking = new BookingDto();
@@ -87,4 +89,37 @@ class BookingMapperTest {
         assertNotNull(bookingDtos);
         assertEquals(bookings.size(), bookingDtos.size());
     }
+
+    @Test
+    void mapToBookingDtoWithItemSummary() {
+        Item item = new Item();
+        item.setId(2L);
+        item.setName("Drill");
+        item.setDescription("Cordless drill");
+        item.setComments(List.of(new Comment()));
+        Booking booking = new Booking();
+        booking.setItem(item);
+
+        BookingDto result = BookingMapper.mapToBookingDto(booking);
+
+        assertEquals(new BookingItemSummary(2L, "Drill"), result.getItem());
+        assertNull(result.getItemDetails());
+    }
+
+    @Test
+    void mapToBookingDtoWithExpandedItemExcludesComments() {
+        Item item = new Item();
+        item.setId(2L);
+        item.setName("Drill");
+        item.setDescription("Cordless drill");
+        item.setComments(List.of(new Comment()));
+        Booking booking = new Booking();
+        booking.setItem(item);
+
+        BookingDto result = BookingMapper.mapToBookingDtoList(List.of(booking), true).get(0);
+
+        assertEquals(2L, result.getItem().getId());
+        assertEquals("Cordless drill", result.getItemDetails().getDescription());
+        assertNull(result.getItemDetails().getComments());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,97 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.dto.BookingPeriod;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingPhase;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingPhaseSchedulerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    @Mock
+    private BookingRepository repository;
+
+    @InjectMocks
+    private BookingPhaseScheduler scheduler;
+
+    @Test
+    void firstTickCatchesUpAndQueuesTransitionsWithinHorizon() {
+        when(repository.findPhaseTransitionsBefore(NOW.plus(BookingPhaseScheduler.HORIZON), BookingPhase.FUTURE,
+                BookingPhase.CURRENT)).thenReturn(List.of(
+                new BookingPeriod(1L, 1L, NOW.plusMinutes(10), NOW.plusMinutes(20)),
+                new BookingPeriod(2L, 1L, NOW.plusMinutes(30), NOW.plusDays(1))));
+
+        scheduler.tick(NOW);
+
+        verify(repository).updatePhaseByStartNotAfter(NOW, Set.of(BookingPhase.FUTURE), BookingPhase.CURRENT);
+        verify(repository).updatePhaseByEndNotAfter(NOW, Set.of(BookingPhase.FUTURE, BookingPhase.CURRENT),
+                BookingPhase.PAST);
+        verify(repository, never()).updatePhaseByIdIn(any(), any(), any());
+        assertEquals(3, scheduler.pending());
+    }
+
+    @Test
+    void tickAppliesDueTransitionsInOrder() {
+        when(repository.findPhaseTransitionsBefore(any(), any(), any())).thenReturn(List.of(
+                new BookingPeriod(1L, 1L, NOW.plusMinutes(10), NOW.plusMinutes(20)),
+                new BookingPeriod(2L, 1L, NOW.plusMinutes(15), NOW.plusDays(1))));
+        scheduler.tick(NOW);
+
+        scheduler.tick(NOW.plusMinutes(12));
+        verify(repository).updatePhaseByIdIn(List.of(1L), Set.of(BookingPhase.FUTURE), BookingPhase.CURRENT);
+
+        scheduler.tick(NOW.plusMinutes(25));
+        verify(repository).updatePhaseByIdIn(List.of(2L), Set.of(BookingPhase.FUTURE), BookingPhase.CURRENT);
+        verify(repository).updatePhaseByIdIn(List.of(1L), Set.of(BookingPhase.FUTURE, BookingPhase.CURRENT),
+                BookingPhase.PAST);
+        assertEquals(0, scheduler.pending());
+    }
+
+    @Test
+    void scheduleQueuesNewBookingOnlyWithinHorizon() {
+        scheduler.tick(NOW);
+
+        scheduler.schedule(Booking.builder().id(3L).start(NOW.plusMinutes(5)).end(NOW.plusHours(2)).build());
+        scheduler.schedule(Booking.builder().id(4L).start(NOW.plusDays(1)).end(NOW.plusDays(2)).build());
+
+        assertEquals(1, scheduler.pending());
+    }
+
+    @Test
+    void bookingCommittedDuringReloadIsQueued() {
+        when(repository.findPhaseTransitionsBefore(any(), any(), any())).thenAnswer(invocation -> {
+            scheduler.schedule(Booking.builder().id(3L).start(NOW.plusMinutes(5)).end(NOW.plusDays(1)).build());
+            return List.of();
+        });
+
+        scheduler.tick(NOW);
+
+        assertEquals(1, scheduler.pending());
+    }
+
+    @Test
+    void tickReloadsOnceHorizonIsReached() {
+        scheduler.tick(NOW);
+        scheduler.tick(NOW.plusMinutes(30));
+        scheduler.tick(NOW.plus(BookingPhaseScheduler.HORIZON));
+
+        verify(repository, times(2)).findPhaseTransitionsBefore(any(), eq(BookingPhase.FUTURE),
+                eq(BookingPhase.CURRENT));
+        verify(repository, times(2)).updatePhaseByStartNotAfter(any(), any(), any());
+    }
+}
@@ -1,27 +1,61 @@
 package ru.practicum.shareit.booking;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.booking.dto.BookingCreateSnapshot;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPeriod;
+import ru.practicum.shareit.booking.dto.BookingStateCount;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingPhase;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 class BookingRepositoryTest {
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
     @Test
     void findBookingsByItemOwner() {
         long ownerId = 1L;
@@ -85,71 +119,286 @@ class BookingRepositoryTest {
     }
 
     @Test
-    void findBookingsByBookerIdAndStatus() {
+    void findBookingsByBookerId() {
         long userId = 1L;
-        BookingStatus status = BookingStatus.APPROVED;
-        List<Booking> bookings = bookingRepository.findBookingsByBookerIdAndStatus(
-                userId, status, Sort.by(Sort.Direction.DESC, "start"));
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        Page<Booking> bookingsPage = bookingRepository.findBookingsByBookerId(userId, pageRequest);
 
-        assertEquals(0, bookings.size());
+        assertEquals(0, bookingsPage.getTotalElements());
     }
 
     @Test
-    void findBookingsByItemOwnerAndStatus() {
-        long userId = 1L;
-        BookingStatus status = BookingStatus.APPROVED;
-        List<Booking> bookings = bookingRepository.findBookingsByItemOwnerAndStatus(
-                userId, status, Sort.by(Sort.Direction.DESC, "start"));
+    void findLastAndNextBookingsByItemIds() {
+        User owner = userRepository.save(User.builder().name("Owner").email("owner@example.com").build());
+        User booker = userRepository.save(User.builder().name("Booker").email("booker@example.com").build());
+        Item item1 = itemRepository.save(Item.builder().name("Drill").description("Drill")
+                .available(true).owner(owner.getId()).build());
+        Item item2 = itemRepository.save(Item.builder().name("Saw").description("Saw")
+                .available(true).owner(owner.getId()).build());
+        LocalDateTime now = LocalDateTime.now();
+        bookingRepository.save(new Booking(0, now.minusDays(5), now.minusDays(4), item1, booker, BookingStatus.APPROVED, null, 0));
+        Booking last = bookingRepository.save(new Booking(0, now.minusDays(2), now.minusDays(1), item1, booker,
+                BookingStatus.APPROVED, null, 0));
+        Booking next = bookingRepository.save(new Booking(0, now.plusDays(1), now.plusDays(2), item1, booker,
+                BookingStatus.APPROVED, null, 0));
+        bookingRepository.save(new Booking(0, now.plusDays(3), now.plusDays(4), item1, booker, BookingStatus.APPROVED, null, 0));
+        bookingRepository.save(new Booking(0, now.plusHours(1), now.plusHours(2), item1, booker, BookingStatus.WAITING, null, 0));
+        Booking onlyNext = bookingRepository.save(new Booking(0, now.plusDays(2), now.plusDays(3), item2, booker,
+                BookingStatus.APPROVED, null, 0));
 
-        assertEquals(0, bookings.size());
+        List<Booking> bookings = bookingRepository.findLastAndNextBookingsByItemIds(
+                List.of(item1.getId(), item2.getId()), BookingStatus.APPROVED, now);
+
+        assertEquals(3, bookings.size());
+        assertTrue(bookings.stream().anyMatch(booking -> booking.getId() == last.getId()));
+        assertTrue(bookings.stream().anyMatch(booking -> booking.getId() == next.getId()));
+        assertTrue(bookings.stream().anyMatch(booking -> booking.getId() == onlyNext.getId()));
     }
 
     @Test
-    void findBookingsByItemOwnerAndStartBeforeAndEndAfter() {
-        long userId = 1L;
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime future = now.plusDays(1);
-        List<Booking> bookings = bookingRepository.findBookingsByItemOwnerAndStartBeforeAndEndAfter(
-                userId, now, future);
+    void findSliceByRoleStateAndCursor() {
+        User owner = userRepository.save(User.builder().name("Owner").email("owner@example.com").build());
+        User booker = userRepository.save(User.builder().name("Booker").email("booker@example.com").build());
+        Item item = itemRepository.save(Item.builder().name("Drill").description("Drill")
+                .available(true).owner(owner.getId()).build());
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Booking past = bookingRepository.save(new Booking(0, now.minusDays(3), now.minusDays(2), item, booker,
+                BookingStatus.APPROVED, null, 0));
+        Booking current = bookingRepository.save(new Booking(0, now.minusDays(1), now.plusDays(1), item, booker,
+                BookingStatus.APPROVED, null, 0));
+        Booking first = bookingRepository.save(new Booking(0, now.plusDays(2), now.plusDays(3), item, booker,
+                BookingStatus.WAITING, null, 0));
+        Booking second = bookingRepository.save(new Booking(0, now.plusDays(1), now.plusDays(2), item, booker,
+                BookingStatus.REJECTED, null, 0));
+        Booking third = bookingRepository.save(new Booking(0, now.plusDays(1), now.plusDays(2), item, booker,
+                BookingStatus.WAITING, null, 0));
+        Sort sort = Sort.by(Sort.Direction.DESC, "start", "id");
 
-        assertEquals(0, bookings.size());
+        Slice<Booking> firstPage = bookingRepository.findSlice(BookingSpecifications.byRoleAndState(BookingRole.OWNER,
+                owner.getId(), BookingState.FUTURE), sort, 0, 2);
+        Booking last = firstPage.getContent().get(1);
+        Slice<Booking> secondPage = bookingRepository.findSlice(BookingSpecifications.byRoleAndState(
+                BookingRole.BOOKER, booker.getId(), BookingState.FUTURE)
+                .and(BookingSpecifications.beforeCursor(new BookingCursor(last.getStart(), last.getId()))), sort, 0, 2);
+
+        assertTrue(firstPage.hasNext());
+        assertEquals(List.of(first.getId(), third.getId()),
+                List.of(firstPage.getContent().get(0).getId(), last.getId()));
+        assertFalse(secondPage.hasNext());
+        assertEquals(List.of(second.getId()), List.of(secondPage.getContent().get(0).getId()));
+        assertEquals(List.of(current.getId()), ids(BookingRole.OWNER, owner.getId(), BookingState.CURRENT));
+        assertEquals(List.of(past.getId()), ids(BookingRole.BOOKER, booker.getId(), BookingState.PAST));
+        assertEquals(List.of(first.getId(), third.getId()),
+                ids(BookingRole.OWNER, owner.getId(), BookingState.WAITING));
+        assertEquals(List.of(second.getId()), ids(BookingRole.OWNER, owner.getId(), BookingState.REJECTED));
+        assertEquals(5, ids(BookingRole.BOOKER, booker.getId(), BookingState.ALL).size());
+        assertTrue(ids(BookingRole.BOOKER, owner.getId(), BookingState.ALL).isEmpty());
+    }
+
+    private List<Long> ids(BookingRole role, long userId, BookingState state) {
+        return bookingRepository.findSlice(BookingSpecifications.byRoleAndState(role, userId, state),
+                        Sort.by(Sort.Direction.DESC, "start", "id"), 0, 10).stream()
+                .map(Booking::getId)
+                .collect(Collectors.toList());
     }
 
     @Test
-    void findBookingsByBookerIdAndStartBeforeAndEndAfter() {
-        long userId = 1L;
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime future = now.plusDays(1);
-        List<Booking> bookings = bookingRepository.findBookingsByBookerIdAndStartBeforeAndEndAfter(
-                userId, now, future);
+    void findSliceLoadsBookingPageInOneStatement() {
+        User owner = userRepository.save(User.builder().name("Owner").email("owner@example.com").build());
+        ItemRequest request = entityManager.persist(ItemRequest.builder().description("Need a drill")
+                .requestor(owner.getId()).created(Timestamp.valueOf(LocalDateTime.now())).build());
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        for (int i = 0; i < 100; i++) {
+            User booker = userRepository.save(User.builder().name("Booker " + i).email(i + "@example.com").build());
+            Item item = itemRepository.save(Item.builder().name("Item " + i).description("Item " + i)
+                    .available(true).owner(owner.getId()).requestId(i % 2 == 0 ? request : null).build());
+            entityManager.persist(Comment.builder().text("Comment " + i).itemId(item.getId())
+                    .authorId(booker.getId()).createdAt(LocalDateTime.now()).build());
+            bookingRepository.save(new Booking(0, start.plusHours(i), start.plusHours(i + 1), item, booker,
+                    BookingStatus.WAITING, null, 0));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
 
-        assertEquals(0, bookings.size());
+        List<BookingDto> bookings = BookingMapper.mapToBookingDtoList(bookingRepository.findSlice(
+                BookingSpecifications.byRoleAndState(BookingRole.OWNER, owner.getId(), BookingState.ALL),
+                Sort.by(Sort.Direction.DESC, "start", "id"), 0, 100).getContent());
+
+        assertEquals(100, bookings.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
     }
 
     @Test
-    void findBookingsByItemOwnerAndEndBeforeOrderByEndDesc() {
-        long userId = 1L;
-        LocalDateTime now = LocalDateTime.now();
-        List<Booking> bookings = bookingRepository.findBookingsByItemOwnerAndEndBeforeOrderByEndDesc(userId, now);
+    void findBookingCreateSnapshot() {
+        User owner = userRepository.save(User.builder().name("Owner").email("owner@example.com").build());
+        User booker = userRepository.save(User.builder().name("Booker").email("booker@example.com").build());
+        Item item = itemRepository.save(Item.builder().name("Drill").description("Drill")
+                .available(false).owner(owner.getId()).build());
 
-        assertEquals(0, bookings.size());
+        BookingCreateSnapshot snapshot = bookingRepository.findBookingCreateSnapshot(booker.getId(), item.getId())
+                .orElseThrow();
+
+        assertEquals(item.getId(), snapshot.getItemId());
+        assertFalse(snapshot.getItemAvailable());
+        assertEquals(owner.getId(), snapshot.getOwnerId());
+        assertNull(bookingRepository.findBookingCreateSnapshot(booker.getId(), item.getId() + 1)
+                .orElseThrow().getItemId());
+        assertTrue(bookingRepository.findBookingCreateSnapshot(booker.getId() + 100, item.getId()).isEmpty());
     }
 
     @Test
-    void findBookingsByBookerIdAndEndBeforeOrderByEndDesc() {
-        long userId = 1L;
-        LocalDateTime now = LocalDateTime.now();
-        List<Booking> bookings = bookingRepository.findBookingsByBookerIdAndEndBeforeOrderByEndDesc(userId, now);
+    void insertAll() {
+        User owner = userRepository.save(User.builder().name("Owner").email("owner@example.com").build());
+        User booker = userRepository.save(User.builder().name("Booker").email("booker@example.com").build());
+        Item item = itemRepository.save(Item.builder().name("Drill").description("Drill")
+                .available(true).owner(owner.getId()).build());
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        List<Booking> bookings = List.of(
+                Booking.builder().start(start).end(start.plusHours(1)).item(item).booker(booker)
+                        .status(BookingStatus.WAITING).build(),
+                Booking.builder().start(start.plusHours(2)).end(start.plusHours(3)).item(item).booker(booker)
+                        .status(BookingStatus.WAITING).build());
 
-        assertEquals(0, bookings.size());
+        bookingRepository.insertAll(bookings);
+
+        assertTrue(bookings.get(0).getId() > 0);
+        assertEquals(bookings.get(0).getId() + 1, bookings.get(1).getId());
+        assertEquals(start.plusHours(2), bookingRepository.findById(bookings.get(1).getId()).orElseThrow().getStart());
     }
 
     @Test
-    void findBookingsByBookerId() {
-        long userId = 1L;
-        PageRequest pageRequest = PageRequest.of(0, 10);
-        Page<Booking> bookingsPage = bookingRepository.findBookingsByBookerId(userId, pageRequest);
+    void findItemIdsAndIdsByIdIn() {
+        User owner = userRepository.save(User.builder().name("Owner").email("owner@example.com").build());
+        User booker = userRepository.save(User.builder().name("Booker").email("booker@example.com").build());
+        Item item = itemRepository.save(Item.builder().name("Drill").description("Drill")
+                .available(true).owner(owner.getId()).build());
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(bookingRepository.save(Booking.builder().start(start.plusHours(2 * i)).end(start.plusHours(2 * i + 1))
+                    .item(item).booker(booker).status(BookingStatus.WAITING).build()).getId());
+        }
 
-        assertEquals(0, bookingsPage.getTotalElements());
+        bookingRepository.updateStatusByIdInAndStatus(ids.subList(0, 2), BookingStatus.WAITING,
+                BookingStatus.APPROVED);
+
+        assertEquals(List.of(item.getId()), bookingRepository.findItemIdsByIdIn(ids));
+        assertEquals(ids.subList(0, 2), bookingRepository.findIdsByIdInAndStatus(ids, BookingStatus.APPROVED).stream()
+                .sorted()
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void streamBookingsByItemOwner() {
+        User owner = userRepository.save(User.builder().name("Owner").email("owner@example.com").build());
+        User booker = userRepository.save(User.builder().name("Booker").email("booker@example.com").build());
+        Item item = itemRepository.save(Item.builder().name("Drill").description("Drill")
+                .available(true).owner(owner.getId()).build());
+        Item other = itemRepository.save(Item.builder().name("Saw").description("Saw")
+                .available(true).owner(booker.getId()).build());
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Booking early = bookingRepository.save(new Booking(0, now.plusDays(1), now.plusDays(2), item, booker,
+                BookingStatus.APPROVED, null, 0));
+        Booking late = bookingRepository.save(new Booking(0, now.plusDays(3), now.plusDays(4), item, booker,
+                BookingStatus.WAITING, null, 0));
+        bookingRepository.save(new Booking(0, now.plusDays(1), now.plusDays(2), other, owner,
+                BookingStatus.WAITING, null, 0));
+        entityManager.clear();
+
+        try (Stream<Booking> bookings = bookingRepository.streamBookingsByItemOwnerOrderByStartDescIdDesc(
+                owner.getId())) {
+            assertEquals(List.of(late.getId(), early.getId()), bookings
+                    .map(Booking::getId)
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void countStates() {
+        User owner = userRepository.save(User.builder().name("Owner").email("owner@example.com").build());
+        User booker = userRepository.save(User.builder().name("Booker").email("booker@example.com").build());
+        Item item = itemRepository.save(Item.builder().name("Drill").description("Drill")
+                .available(true).owner(owner.getId()).build());
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        bookingRepository.save(new Booking(0, now.minusDays(3), now.minusDays(2), item, booker,
+                BookingStatus.APPROVED, null, 0));
+        bookingRepository.save(new Booking(0, now.plusDays(1), now.plusDays(2), item, booker,
+                BookingStatus.WAITING, null, 0));
+        bookingRepository.save(new Booking(0, now.plusDays(3), now.plusDays(4), item, booker,
+                BookingStatus.WAITING, null, 0));
+
+        List<BookingStateCount> counts = bookingRepository.countStatesByItemOwner(owner.getId());
+
+        assertEquals(2, counts.size());
+        assertTrue(counts.contains(new BookingStateCount(BookingPhase.PAST, BookingStatus.APPROVED, 1L)));
+        assertTrue(counts.contains(new BookingStateCount(BookingPhase.FUTURE, BookingStatus.WAITING, 2L)));
+        assertEquals(counts.size(), bookingRepository.countStatesByBookerId(booker.getId()).size());
+        assertTrue(bookingRepository.countStatesByBookerId(owner.getId()).isEmpty());
+    }
+
+    @Test
+    void cancelWaitingBookings() {
+        User owner = userRepository.save(User.builder().name("Owner").email("owner@example.com").build());
+        User booker = userRepository.save(User.builder().name("Booker").email("booker@example.com").build());
+        Item item = itemRepository.save(Item.builder().name("Drill").description("Drill")
+                .available(true).owner(owner.getId()).build());
+        LocalDateTime start = LocalDateTime.now().minusHours(1).truncatedTo(ChronoUnit.SECONDS);
+        Booking waiting = bookingRepository.save(Booking.builder().start(start).end(start.plusHours(2))
+                .item(item).booker(booker).status(BookingStatus.WAITING).build());
+        Booking approved = bookingRepository.save(Booking.builder().start(start.plusHours(3)).end(start.plusHours(4))
+                .item(item).booker(booker).status(BookingStatus.APPROVED).build());
+        List<Long> ids = List.of(waiting.getId(), approved.getId());
+
+        assertEquals(List.of(waiting.getId()), bookingRepository.findPeriodsByStatus(BookingStatus.WAITING).stream()
+                .map(BookingPeriod::getId)
+                .collect(Collectors.toList()));
+        assertEquals(1, bookingRepository.updateStatusByIdInAndStatus(ids, BookingStatus.WAITING,
+                BookingStatus.CANCELED));
+
+        List<Booking> canceled = bookingRepository.findBookingsByIdInAndStatus(ids, BookingStatus.CANCELED);
+        assertEquals(List.of(waiting.getId()), canceled.stream().map(Booking::getId).collect(Collectors.toList()));
+        assertEquals(1, canceled.get(0).getVersion());
+        assertEquals(BookingStatus.APPROVED, bookingRepository.findById(approved.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void advancePhases() {
+        User owner = userRepository.save(User.builder().name("Owner").email("owner@example.com").build());
+        User booker = userRepository.save(User.builder().name("Booker").email("booker@example.com").build());
+        Item item = itemRepository.save(Item.builder().name("Drill").description("Drill")
+                .available(true).owner(owner.getId()).build());
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Booking started = bookingRepository.save(Booking.builder().start(now.minusHours(1)).end(now.plusHours(1))
+                .item(item).booker(booker).status(BookingStatus.APPROVED).phase(BookingPhase.FUTURE).build());
+        Booking ended = bookingRepository.save(Booking.builder().start(now.minusHours(3)).end(now.minusHours(2))
+                .item(item).booker(booker).status(BookingStatus.APPROVED).phase(BookingPhase.FUTURE).build());
+        Item other = itemRepository.save(Item.builder().name("Saw").description("Saw")
+                .available(true).owner(owner.getId()).build());
+        Booking soon = bookingRepository.save(Booking.builder().start(now.plusMinutes(30)).end(now.plusDays(1))
+                .item(other).booker(booker).status(BookingStatus.WAITING).build());
+        Booking later = bookingRepository.save(Booking.builder().start(now.plusDays(2)).end(now.plusDays(3))
+                .item(item).booker(booker).status(BookingStatus.WAITING).build());
+
+        assertEquals(BookingPhase.FUTURE, soon.getPhase());
+        assertEquals(2, bookingRepository.updatePhaseByStartNotAfter(now, Set.of(BookingPhase.FUTURE),
+                BookingPhase.CURRENT));
+        assertEquals(1, bookingRepository.updatePhaseByEndNotAfter(now,
+                Set.of(BookingPhase.FUTURE, BookingPhase.CURRENT), BookingPhase.PAST));
+        assertEquals(List.of(started.getId(), soon.getId()), bookingRepository.findPhaseTransitionsBefore(
+                        now.plusHours(1).plusSeconds(1), BookingPhase.FUTURE, BookingPhase.CURRENT).stream()
+                .map(BookingPeriod::getId)
+                .sorted()
+                .collect(Collectors.toList()));
+        assertEquals(2, bookingRepository.updatePhaseByIdIn(List.of(soon.getId(), later.getId(), ended.getId()),
+                Set.of(BookingPhase.FUTURE), BookingPhase.CURRENT));
+
+        entityManager.clear();
+        assertEquals(BookingPhase.CURRENT, bookingRepository.findById(started.getId()).orElseThrow().getPhase());
+        assertEquals(BookingPhase.PAST, bookingRepository.findById(ended.getId()).orElseThrow().getPhase());
+        assertEquals(BookingPhase.CURRENT, bookingRepository.findById(soon.getId()).orElseThrow().getPhase());
+        assertEquals(BookingPhase.CURRENT, bookingRepository.findById(later.getId()).orElseThrow().getPhase());
     }
-}
\ No newline at end of file
+}
@@ -1,28 +1,49 @@
 package ru.practicum.shareit.booking;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResult;
+import ru.practicum.shareit.booking.dto.BookingCreateSnapshot;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.dto.BookingStateCount;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingPhase;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.exceptions.ConflictException;
 import ru.practicum.shareit.exceptions.ResourceNotFoundException;
 import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.item.ItemBookingPointers;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.EntityManager;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -40,9 +61,45 @@ class BookingServiceImplTest {
     @Mock
     private ItemRepository itemRepository;
 
+    @Mock
+    private BookingIntervalIndex intervalIndex;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private BookingItemLocks itemLocks;
+
+    @Spy
+    private BookingSummaryCache summaryCache = new BookingSummaryCache(Duration.ofMinutes(1));
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ItemBookingPointers itemBookingPointers;
+
+    @Mock
+    private BookingPhaseScheduler phaseScheduler;
+
+    @Mock
+    private BookingExpiryService expiryService;
+
+    @Mock
+    private BookingAvailabilityIndex availabilityIndex;
+
+    @Mock
+    private BookingCalendarIndex calendarIndex;
+
     @InjectMocks
     private BookingServiceImpl bookingService;
 
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
     @Test
     void setBookingApproval() {
         long userId = 1L;
@@ -51,14 +108,19 @@ class BookingServiceImplTest {
         booking.setId(bookingId);
         booking.setStatus(BookingStatus.WAITING);
 
+        when(bookingRepository.findItemIdById(bookingId)).thenReturn(Optional.of(1L));
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
 
         Item item = new Item();
+        item.setId(5L);
         item.setOwner(userId);
         booking.setItem(item);
         Booking result = bookingService.setBookingApproval(userId, bookingId, true);
 
         assertEquals(BookingStatus.APPROVED, result.getStatus());
+        verify(itemBookingPointers).refresh(eq(List.of(item)), any(LocalDateTime.class));
+        verify(availabilityIndex).add(booking);
+        verify(calendarIndex).add(booking);
     }
 
     @Test
@@ -69,6 +131,7 @@ class BookingServiceImplTest {
         booking.setId(bookingId);
         booking.setStatus(BookingStatus.APPROVED);
 
+        when(bookingRepository.findItemIdById(bookingId)).thenReturn(Optional.of(1L));
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
 
         Item item = new Item();
@@ -80,11 +143,64 @@ class BookingServiceImplTest {
         });
     }
 
+    @Test
+    void getBookingSummaryByOwnerId() {
+        when(bookingRepository.countStatesByItemOwner(1L)).thenReturn(List.of(
+                new BookingStateCount(BookingPhase.FUTURE, BookingStatus.WAITING, 3L),
+                new BookingStateCount(BookingPhase.FUTURE, BookingStatus.REJECTED, 1L),
+                new BookingStateCount(BookingPhase.CURRENT, BookingStatus.APPROVED, 2L),
+                new BookingStateCount(BookingPhase.PAST, BookingStatus.APPROVED, 5L),
+                new BookingStateCount(BookingPhase.PAST, BookingStatus.CANCELED, 1L)));
+
+        BookingSummaryDto summary = bookingService.getBookingSummaryByOwnerId(1L);
+
+        assertEquals(new BookingSummaryDto(12, 2, 6, 4, 3, 1), summary);
+        assertEquals(summary, bookingService.getBookingSummaryByOwnerId(1L));
+        verify(bookingRepository, times(1)).countStatesByItemOwner(1L);
+    }
+
+    @Test
+    void getBookingSummaryByBookerId() {
+        when(bookingRepository.countStatesByBookerId(2L)).thenReturn(List.of());
+
+        assertEquals(new BookingSummaryDto(), bookingService.getBookingSummaryByBookerId(2L));
+        verify(bookingRepository, never()).countStatesByItemOwner(anyLong());
+    }
+
+    @Test
+    void exportBookingsByOwnerId() {
+        Booking first = Booking.builder().id(1L).build();
+        Booking second = Booking.builder().id(2L).build();
+        when(bookingRepository.streamBookingsByItemOwnerOrderByStartDescIdDesc(1L))
+                .thenReturn(Stream.of(first, second));
+        List<Booking> exported = new ArrayList<>();
+
+        bookingService.exportBookingsByOwnerId(1L, exported::add);
+
+        assertEquals(List.of(first, second), exported);
+        verify(entityManager).detach(first);
+        verify(entityManager).detach(second);
+    }
+
+    @Test
+    void setBookingApprovalCanceled() {
+        long userId = 1L;
+        long bookingId = 1L;
+        Item item = new Item();
+        item.setOwner(userId);
+        Booking booking = Booking.builder().id(bookingId).item(item).status(BookingStatus.CANCELED).build();
+        when(bookingRepository.findItemIdById(bookingId)).thenReturn(Optional.of(1L));
+        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+
+        assertThrows(ValidationException.class, () -> bookingService.setBookingApproval(userId, bookingId, true));
+        verify(bookingRepository, never()).saveAndFlush(any());
+    }
+
     @Test
     void setBookingApprovalBookerIdNotFound() {
         long userId = 1L;
         long bookingId = 1L;
-        when(bookingRepository.findById(bookingId)).thenReturn(Optional.empty());
+        when(bookingRepository.findItemIdById(bookingId)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> {
             bookingService.setBookingApproval(userId, bookingId, true);
@@ -100,6 +216,7 @@ class BookingServiceImplTest {
         Item item = new Item();
         item.setOwner(2L);
         booking.setItem(item);
+        when(bookingRepository.findItemIdById(bookingId)).thenReturn(Optional.of(1L));
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
 
         assertThrows(ResourceNotFoundException.class, () -> {
@@ -114,6 +231,7 @@ class BookingServiceImplTest {
         Booking booking = new Booking();
         booking.setId(bookingId);
         booking.setStatus(BookingStatus.WAITING);
+        when(bookingRepository.findItemIdById(bookingId)).thenReturn(Optional.of(1L));
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
 
         Item item = new Item();
@@ -122,6 +240,123 @@ class BookingServiceImplTest {
         Booking result = bookingService.setBookingApproval(userId, bookingId, false);
 
         assertEquals(BookingStatus.REJECTED, result.getStatus());
+        verify(intervalIndex).release(booking);
+        verify(availabilityIndex).remove(booking);
+    }
+
+    @Test
+    void setBookingApproval_RetriesAfterConcurrentUpdate() {
+        long userId = 1L;
+        long bookingId = 1L;
+        Item item = new Item();
+        item.setId(1L);
+        item.setOwner(userId);
+        when(bookingRepository.findItemIdById(bookingId)).thenReturn(Optional.of(1L));
+        when(bookingRepository.findById(bookingId)).thenAnswer(invocation -> Optional.of(Booking.builder()
+                .id(bookingId).item(item).status(BookingStatus.WAITING).build()));
+        when(bookingRepository.saveAndFlush(any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, bookingId))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        Booking result = bookingService.setBookingApproval(userId, bookingId, true);
+
+        assertEquals(BookingStatus.APPROVED, result.getStatus());
+        verify(bookingRepository, times(2)).saveAndFlush(any());
+    }
+
+    @Test
+    void setBookingApproval_GivesUpAfterRepeatedConflicts() {
+        long userId = 1L;
+        long bookingId = 1L;
+        Item item = new Item();
+        item.setId(1L);
+        item.setOwner(userId);
+        when(bookingRepository.findItemIdById(bookingId)).thenReturn(Optional.of(1L));
+        when(bookingRepository.findById(bookingId)).thenAnswer(invocation -> Optional.of(Booking.builder()
+                .id(bookingId).item(item).status(BookingStatus.WAITING).build()));
+        when(bookingRepository.saveAndFlush(any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, bookingId));
+
+        assertThrows(ConflictException.class, () -> bookingService.setBookingApproval(userId, bookingId, true));
+        verify(bookingRepository, times(3)).saveAndFlush(any());
+    }
+
+    @Test
+    void setBookingApprovals_ReportsEveryEntry() {
+        Item item = Item.builder().id(1L).name("Drill").available(true).owner(1L).build();
+        Item foreignItem = Item.builder().id(2L).name("Saw").available(true).owner(3L).build();
+        User booker = User.builder().id(2L).name("Booker").email("booker@mail.ru").build();
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        Booking waiting = Booking.builder().id(1L).item(item).booker(booker).start(start).end(start.plusHours(1))
+                .status(BookingStatus.WAITING).build();
+        Booking rejected = Booking.builder().id(2L).item(item).booker(booker).start(start).end(start.plusHours(1))
+                .status(BookingStatus.WAITING).build();
+        Booking approved = Booking.builder().id(3L).item(item).booker(booker).start(start).end(start.plusHours(1))
+                .status(BookingStatus.APPROVED).build();
+        Booking foreign = Booking.builder().id(4L).item(foreignItem).booker(booker).start(start)
+                .end(start.plusHours(1)).status(BookingStatus.WAITING).build();
+        when(bookingRepository.findItemIdsByIdIn(any())).thenReturn(List.of(1L, 2L));
+        when(bookingRepository.findBookingsByIdIn(any())).thenReturn(List.of(waiting, rejected, approved, foreign));
+        when(bookingRepository.updateStatusByIdInAndStatus(any(), eq(BookingStatus.WAITING), any())).thenReturn(1);
+
+        List<BookingBatchResult> results = bookingService.setBookingApprovals(1L, List.of(
+                new BookingApprovalDto(1L, true),
+                new BookingApprovalDto(2L, false),
+                new BookingApprovalDto(3L, false),
+                new BookingApprovalDto(4L, true),
+                new BookingApprovalDto(5L, true),
+                new BookingApprovalDto(1L, false)));
+
+        assertEquals(List.of(200, 200, 400, 404, 404, 400),
+                results.stream().map(BookingBatchResult::getStatus).collect(Collectors.toList()));
+        assertEquals(BookingStatus.APPROVED, results.get(0).getBooking().getStatus());
+        assertEquals(BookingStatus.REJECTED, results.get(1).getBooking().getStatus());
+        verify(bookingRepository).updateStatusByIdInAndStatus(List.of(1L), BookingStatus.WAITING,
+                BookingStatus.APPROVED);
+        verify(bookingRepository).updateStatusByIdInAndStatus(List.of(2L), BookingStatus.WAITING,
+                BookingStatus.REJECTED);
+        verify(intervalIndex).release(rejected);
+        verify(availabilityIndex).remove(rejected);
+        verify(itemBookingPointers).refresh(eq(List.of(item)), any(LocalDateTime.class));
+        verify(itemLocks).withItemLocks(eq(List.of(1L, 2L)), any());
+    }
+
+    @Test
+    void setBookingApproval_RejectedBooking() {
+        Item item = Item.builder().id(1L).owner(1L).build();
+        when(bookingRepository.findItemIdById(5L)).thenReturn(Optional.of(1L));
+        when(bookingRepository.findById(5L)).thenReturn(Optional.of(Booking.builder().id(5L).item(item)
+                .status(BookingStatus.REJECTED).build()));
+
+        assertThrows(ValidationException.class, () -> bookingService.setBookingApproval(1L, 5L, true));
+        verify(bookingRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(availabilityIndex);
+    }
+
+    @Test
+    void setBookingApprovals_ReportsConcurrentlyChangedBookingAsConflict() {
+        Item item = Item.builder().id(1L).name("Drill").available(true).owner(1L).build();
+        User booker = User.builder().id(2L).name("Booker").email("booker@mail.ru").build();
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        Booking first = Booking.builder().id(1L).item(item).booker(booker).start(start).end(start.plusHours(1))
+                .status(BookingStatus.WAITING).build();
+        Booking expired = Booking.builder().id(2L).item(item).booker(booker).start(start.plusHours(2))
+                .end(start.plusHours(3)).status(BookingStatus.WAITING).build();
+        when(bookingRepository.findItemIdsByIdIn(any())).thenReturn(List.of(1L));
+        when(bookingRepository.findBookingsByIdIn(any())).thenReturn(List.of(first, expired));
+        when(bookingRepository.updateStatusByIdInAndStatus(List.of(1L, 2L), BookingStatus.WAITING,
+                BookingStatus.APPROVED)).thenReturn(1);
+        when(bookingRepository.findIdsByIdInAndStatus(List.of(1L, 2L), BookingStatus.APPROVED))
+                .thenReturn(List.of(1L));
+
+        List<BookingBatchResult> results = bookingService.setBookingApprovals(1L, List.of(
+                new BookingApprovalDto(1L, true),
+                new BookingApprovalDto(2L, true)));
+
+        assertEquals(List.of(200, 409),
+                results.stream().map(BookingBatchResult::getStatus).collect(Collectors.toList()));
+        verify(availabilityIndex).add(first);
+        verify(availabilityIndex, never()).add(expired);
     }
 
     @Test
@@ -158,13 +393,13 @@ class BookingServiceImplTest {
         BookingRequestDto bookingDto = new BookingRequestDto();
         bookingDto.setStart(LocalDateTime.now().plusHours(1));
         bookingDto.setEnd(LocalDateTime.now().plusHours(2));
-        when(userRepository.existsById(userId)).thenReturn(false);
+        when(bookingRepository.findBookingCreateSnapshot(userId, bookingDto.getItemId())).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> {
             bookingService.createBooking(userId, bookingDto);
         });
 
-        verify(userRepository, times(1)).existsById(userId);
+        verify(bookingRepository, times(1)).findBookingCreateSnapshot(userId, bookingDto.getItemId());
     }
 
     @Test
@@ -175,14 +410,14 @@ class BookingServiceImplTest {
         bookingDto.setItemId(itemId);
         bookingDto.setStart(LocalDateTime.now().plusHours(1));
         bookingDto.setEnd(LocalDateTime.now().plusHours(2));
-        when(userRepository.existsById(userId)).thenReturn(true);
-        when(itemRepository.existsById(itemId)).thenReturn(false);
+        when(bookingRepository.findBookingCreateSnapshot(userId, itemId))
+                .thenReturn(Optional.of(new BookingCreateSnapshot()));
 
         assertThrows(ResourceNotFoundException.class, () -> {
             bookingService.createBooking(userId, bookingDto);
         });
 
-        verify(itemRepository, times(1)).existsById(itemId);
+        verify(bookingRepository, never()).save(any());
     }
 
     @Test
@@ -196,15 +431,14 @@ class BookingServiceImplTest {
 
         Item item = new Item();
         item.setAvailable(false);
-        when(userRepository.existsById(userId)).thenReturn(true);
-        when(itemRepository.existsById(itemId)).thenReturn(true);
-        when(itemRepository.getById(itemId)).thenReturn(item);
+        when(bookingRepository.findBookingCreateSnapshot(userId, itemId))
+                .thenReturn(Optional.of(new BookingCreateSnapshot(itemId, item.getAvailable(), item.getOwner())));
 
         assertThrows(ValidationException.class, () -> {
             bookingService.createBooking(userId, bookingDto);
         });
 
-        verify(itemRepository, times(1)).getById(itemId);
+        verify(bookingRepository, never()).save(any());
     }
 
     @Test
@@ -217,15 +451,14 @@ class BookingServiceImplTest {
         bookingDto.setEnd(LocalDateTime.now().plusHours(2));
         Item item = new Item();
         item.setAvailable(true);
-        when(userRepository.existsById(userId)).thenReturn(true);
-        when(itemRepository.existsById(itemId)).thenReturn(true);
-        when(itemRepository.getById(itemId)).thenReturn(item);
+        when(bookingRepository.findBookingCreateSnapshot(userId, itemId))
+                .thenReturn(Optional.of(new BookingCreateSnapshot(itemId, item.getAvailable(), item.getOwner())));
 
         assertThrows(ValidationException.class, () -> {
             bookingService.createBooking(userId, bookingDto);
         });
 
-        verify(itemRepository, times(1)).getById(itemId);
+        verify(bookingRepository, never()).save(any());
     }
 
     @Test
@@ -238,15 +471,14 @@ class BookingServiceImplTest {
         bookingDto.setEnd(LocalDateTime.now().minusDays(2));
         Item item = new Item();
         item.setAvailable(true);
-        when(userRepository.existsById(userId)).thenReturn(true);
-        when(itemRepository.existsById(itemId)).thenReturn(true);
-        when(itemRepository.getById(itemId)).thenReturn(item);
+        when(bookingRepository.findBookingCreateSnapshot(userId, itemId))
+                .thenReturn(Optional.of(new BookingCreateSnapshot(itemId, item.getAvailable(), item.getOwner())));
 
         assertThrows(ValidationException.class, () -> {
             bookingService.createBooking(userId, bookingDto);
         });
 
-        verify(itemRepository, times(1)).getById(itemId);
+        verify(bookingRepository, never()).save(any());
     }
 
     @Test
@@ -260,15 +492,14 @@ class BookingServiceImplTest {
         bookingDto.setEnd(sameTime);
         Item item = new Item();
         item.setAvailable(true);
-        when(userRepository.existsById(userId)).thenReturn(true);
-        when(itemRepository.existsById(itemId)).thenReturn(true);
-        when(itemRepository.getById(itemId)).thenReturn(item);
+        when(bookingRepository.findBookingCreateSnapshot(userId, itemId))
+                .thenReturn(Optional.of(new BookingCreateSnapshot(itemId, item.getAvailable(), item.getOwner())));
 
         assertThrows(ValidationException.class, () -> {
             bookingService.createBooking(userId, bookingDto);
         });
 
-        verify(itemRepository, times(1)).getById(itemId);
+        verify(bookingRepository, never()).save(any());
     }
 
     @Test
@@ -283,10 +514,8 @@ class BookingServiceImplTest {
         Item item = new Item();
         item.setOwner(userId);
         item.setAvailable(true);
-        when(userRepository.existsById(userId)).thenReturn(true);
-        when(itemRepository.existsById(itemId)).thenReturn(true);
-        when(itemRepository.getById(itemId)).thenReturn(item);
-        when(itemRepository.getReferenceById(itemId)).thenReturn(item);
+        when(bookingRepository.findBookingCreateSnapshot(userId, itemId))
+                .thenReturn(Optional.of(new BookingCreateSnapshot(itemId, item.getAvailable(), item.getOwner())));
 
         assertThrows(ResourceNotFoundException.class, () -> {
             bookingService.createBooking(userId, bookingDto);
@@ -308,15 +537,94 @@ class BookingServiceImplTest {
         Item item = new Item();
         item.setOwner(userId);
         item.setAvailable(true);
-        when(userRepository.existsById(2L)).thenReturn(true);
-        when(itemRepository.existsById(itemId)).thenReturn(true);
-        when(itemRepository.getById(itemId)).thenReturn(item);
+        when(bookingRepository.findBookingCreateSnapshot(2L, itemId))
+                .thenReturn(Optional.of(new BookingCreateSnapshot(itemId, item.getAvailable(), item.getOwner())));
         when(itemRepository.getReferenceById(itemId)).thenReturn(item);
         Booking booking = bookingService.createBooking(2L, bookingDto);
 
-        assertEquals(start, booking.getStart());
-        assertEquals(end, booking.getEnd());
+        assertEquals(start.truncatedTo(ChronoUnit.MICROS), booking.getStart());
+        assertEquals(end.truncatedTo(ChronoUnit.MICROS), booking.getEnd());
         assertEquals(BookingStatus.WAITING, booking.getStatus());
+        verify(intervalIndex).reserve(booking);
+        verify(intervalIndex).inserted(booking);
+        verify(phaseScheduler).schedule(booking);
+        verify(expiryService).schedule(booking);
+    }
+
+    @Test
+    void createBooking_OverlapsActiveBooking() {
+        long itemId = 1L;
+        BookingRequestDto bookingDto = new BookingRequestDto();
+        bookingDto.setStart(LocalDateTime.now().plusHours(1));
+        bookingDto.setEnd(LocalDateTime.now().plusHours(2));
+        bookingDto.setItemId(itemId);
+        Item item = new Item();
+        item.setOwner(1L);
+        item.setAvailable(true);
+        when(bookingRepository.findBookingCreateSnapshot(2L, itemId))
+                .thenReturn(Optional.of(new BookingCreateSnapshot(itemId, item.getAvailable(), item.getOwner())));
+        when(itemRepository.getReferenceById(itemId)).thenReturn(item);
+        doThrow(new ConflictException("Item is already booked")).when(intervalIndex).reserve(any());
+
+        assertThrows(ConflictException.class, () -> bookingService.createBooking(2L, bookingDto));
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    void createBookings_ReportsEveryEntry() {
+        User booker = User.builder().id(2L).name("Booker").email("booker@mail.ru").build();
+        Item item = Item.builder().id(1L).name("Drill").available(true).owner(1L).build();
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<BookingRequestDto> bookingDtos = List.of(
+                BookingRequestDto.builder().itemId(1L).start(start).end(start.plusHours(2)).build(),
+                BookingRequestDto.builder().itemId(1L).start(start.plusHours(1)).end(start.plusHours(3)).build(),
+                BookingRequestDto.builder().itemId(5L).start(start).end(start.plusHours(1)).build(),
+                BookingRequestDto.builder().itemId(1L).start(start.minusDays(2)).end(start).build());
+        when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
+        when(itemRepository.findAllById(any())).thenReturn(List.of(item));
+        doNothing().doThrow(new ConflictException("Item is already booked")).when(intervalIndex).reserve(any());
+
+        List<BookingBatchResult> results = bookingService.createBookings(2L, bookingDtos);
+
+        assertEquals(List.of(201, 409, 404, 400),
+                results.stream().map(BookingBatchResult::getStatus).collect(Collectors.toList()));
+        assertEquals("Drill", results.get(0).getBooking().getItem().getName());
+        assertNull(results.get(1).getBooking());
+        verify(bookingRepository).insertAll(argThat(bookings -> bookings.size() == 1));
+        verify(intervalIndex, times(2)).reserve(any());
+        verify(intervalIndex, times(1)).inserted(any());
+        verify(phaseScheduler, times(1)).schedule(argThat(booking -> booking.getPhase() == BookingPhase.FUTURE));
+    }
+
+    @Test
+    void createBookings_KeepsCommittedChunksWhenLaterChunkFails() {
+        User booker = User.builder().id(2L).name("Booker").email("booker@mail.ru").build();
+        Item item = Item.builder().id(1L).name("Drill").available(true).owner(1L).build();
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<BookingRequestDto> bookingDtos = Stream.iterate(start, time -> time.plusHours(2))
+                .limit(150)
+                .map(time -> BookingRequestDto.builder().itemId(1L).start(time).end(time.plusHours(1)).build())
+                .collect(Collectors.toList());
+        when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
+        when(itemRepository.findAllById(any())).thenReturn(List.of(item));
+        doNothing().doThrow(new IllegalStateException("Connection is closed"))
+                .when(bookingRepository).insertAll(any());
+
+        List<BookingBatchResult> results = bookingService.createBookings(2L, bookingDtos);
+
+        assertEquals(150, results.size());
+        assertTrue(results.subList(0, 100).stream().allMatch(result -> result.getStatus() == 201));
+        assertTrue(results.subList(100, 150).stream().allMatch(result -> result.getStatus() == 500
+                && "Connection is closed".equals(result.getError())));
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+
+    @Test
+    void createBookings_TooManyEntries() {
+        List<BookingRequestDto> bookingDtos = Collections.nCopies(1001, new BookingRequestDto());
+
+        assertThrows(ValidationException.class, () -> bookingService.createBookings(1L, bookingDtos));
+        verify(transactionTemplate, never()).execute(any());
     }
 
     @Test
@@ -386,78 +694,6 @@ class BookingServiceImplTest {
         assertEquals(expectedBookings, result);
     }
 
-    @Test
-    void findBookingsByBookerIdAndStatusWaiting() {
-        long userId = 1L;
-        Booking booking1 = new Booking();
-        booking1.setId(1L);
-        booking1.setStatus(BookingStatus.WAITING);
-        Booking booking2 = new Booking();
-        booking2.setId(2L);
-        booking2.setStatus(BookingStatus.APPROVED);
-        List<Booking> expectedBookings = List.of(booking1);
-
-        when(bookingRepository.findBookingsByBookerIdAndStatus(userId, BookingStatus.WAITING,
-                Sort.by(Sort.Direction.DESC, "start"))).thenReturn(expectedBookings);
-        List<Booking> result = bookingService.findBookingsByBookerIdAndStatusWaiting(userId);
-
-        assertEquals(expectedBookings, result);
-    }
-
-    @Test
-    void findBookingsByItemOwnerAndStatusWaiting() {
-        long userId = 1L;
-        Booking booking1 = new Booking();
-        booking1.setId(1L);
-        booking1.setStatus(BookingStatus.WAITING);
-        Booking booking2 = new Booking();
-        booking2.setId(2L);
-        booking2.setStatus(BookingStatus.APPROVED);
-        List<Booking> expectedBookings = List.of(booking1);
-
-        when(bookingRepository.findBookingsByItemOwnerAndStatus(userId, BookingStatus.WAITING,
-                Sort.by(Sort.Direction.DESC, "start"))).thenReturn(expectedBookings);
-        List<Booking> result = bookingService.findBookingsByItemOwnerAndStatusWaiting(userId);
-
-        assertEquals(expectedBookings, result);
-    }
-
-    @Test
-    void findBookingsByItemOwnerAndStatusRejected() {
-        long userId = 1L;
-        Booking booking1 = new Booking();
-        booking1.setId(1L);
-        booking1.setStatus(BookingStatus.REJECTED);
-        Booking booking2 = new Booking();
-        booking2.setId(2L);
-        booking2.setStatus(BookingStatus.WAITING);
-        List<Booking> expectedBookings = List.of(booking1);
-
-        when(bookingRepository.findBookingsByItemOwnerAndStatus(userId, BookingStatus.REJECTED,
-                Sort.by(Sort.Direction.DESC, "start"))).thenReturn(expectedBookings);
-        List<Booking> result = bookingService.findBookingsByItemOwnerAndStatusRejected(userId);
-
-        assertEquals(expectedBookings, result);
-    }
-
-    @Test
-    void findBookingsByBookerIdAndStatusRejected() {
-        long userId = 1L;
-        Booking booking1 = new Booking();
-        booking1.setId(1L);
-        booking1.setStatus(BookingStatus.REJECTED);
-        Booking booking2 = new Booking();
-        booking2.setId(2L);
-        booking2.setStatus(BookingStatus.WAITING);
-        List<Booking> expectedBookings = List.of(booking1);
-
-        when(bookingRepository.findBookingsByBookerIdAndStatus(userId, BookingStatus.REJECTED,
-                Sort.by(Sort.Direction.DESC, "start"))).thenReturn(expectedBookings);
-        List<Booking> result = bookingService.findBookingsByBookerIdAndStatusRejected(userId);
-
-        assertEquals(expectedBookings, result);
-    }
-
     @Test
     void existsBookingByBookerIdOrItemOwner_Exists() {
         long bookerId = 1L;
@@ -573,79 +809,92 @@ class BookingServiceImplTest {
     }
 
     @Test
-    void findPastBookingsByOwnerId() {
+    void testGetBookingByIdAndBookerOrOwner_BookerIdMatchesUserId() {
+        long bookingId = 1L;
         long userId = 1L;
-        LocalDateTime currentTime = LocalDateTime.now();
-        List<Booking> expectedBookings = new ArrayList<>();
-
-        when(bookingRepository.findBookingsByItemOwnerAndEndBeforeOrderByEndDesc(
-                eq(userId), any(LocalDateTime.class)))
-                .thenReturn(expectedBookings);
+        Booking booking = new Booking();
+        booking.setId(bookingId);
+        User user = new User();
+        user.setId(userId);
+        booking.setItem(new Item());
+        booking.setBooker(user);
 
-        List<Booking> result = bookingService.findPastBookingsByOwnerId(userId);
+        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        Booking result = bookingService.getBookingByIdAndBookerOrOwner(bookingId, userId);
 
-        assertEquals(expectedBookings, result);
+        assertEquals(booking, result);
     }
 
     @Test
-    void findPastBookingsByBookerId() {
+    void findBookingsByStateAndOwnerId_FirstCursorPage() {
         long userId = 1L;
-        LocalDateTime currentTime = LocalDateTime.now();
-        List<Booking> expectedBookings = new ArrayList<>();
+        Slice<Booking> slice = new SliceImpl<>(List.of(new Booking()), PageRequest.of(0, 1), true);
+        when(bookingRepository.existsBookingsByBookerIdOrItemOwner(userId, userId)).thenReturn(true);
+        when(bookingRepository.findSlice(any(), any(Sort.class), eq(0), eq(1))).thenReturn(slice);
 
-        when(bookingRepository.findBookingsByBookerIdAndEndBeforeOrderByEndDesc(
-                eq(userId), any(LocalDateTime.class)))
-                .thenReturn(expectedBookings);
+        Slice<Booking> result = bookingService.findBookingsByStateAndOwnerId(userId, "ALL", "", 1);
 
-        List<Booking> result = bookingService.findPastBookingsByBookerId(userId);
-
-        assertEquals(expectedBookings, result);
+        assertEquals(slice, result);
+        verify(bookingRepository, never()).findBookingsByItemOwner(anyLong(), any(Pageable.class));
     }
 
     @Test
-    void findCurrentBookingsByOwnerId() {
+    void findBookingsByStateAndBookerId_NextCursorPage() {
         long userId = 1L;
-        LocalDateTime currentTime = LocalDateTime.now();
-        List<Booking> expectedBookings = new ArrayList<>();
-
-        when(bookingRepository.findBookingsByItemOwnerAndStartBeforeAndEndAfter(
-                eq(userId), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(expectedBookings);
+        Booking booking = new Booking();
+        booking.setId(5L);
+        booking.setStart(LocalDateTime.of(2030, 1, 1, 12, 0));
+        String cursor = BookingCursor.encode(booking);
+        Slice<Booking> slice = new SliceImpl<>(List.of(new Booking()));
+        when(bookingRepository.existsBookingsByBookerIdOrItemOwner(userId, userId)).thenReturn(true);
+        when(bookingRepository.findSlice(any(), any(Sort.class), eq(0), eq(10))).thenReturn(slice);
 
-        List<Booking> result = bookingService.findCurrentBookingsByOwnerId(userId);
+        Slice<Booking> result = bookingService.findBookingsByStateAndBookerId(userId, "PAST", cursor, 10);
 
-        assertEquals(expectedBookings, result);
+        assertEquals(slice, result);
     }
 
     @Test
-    void findCurrentBookingsByBookerId() {
+    void findBookingsByStateAndOwnerId_PagedState() {
         long userId = 1L;
-        LocalDateTime currentTime = LocalDateTime.now();
-        List<Booking> expectedBookings = new ArrayList<>();
+        List<Booking> bookings = List.of(new Booking());
+        when(bookingRepository.existsBookingsByBookerIdOrItemOwner(userId, userId)).thenReturn(true);
+        when(bookingRepository.findSlice(any(), any(Sort.class), eq(20), eq(10))).thenReturn(new SliceImpl<>(bookings));
 
-        when(bookingRepository.findBookingsByBookerIdAndStartBeforeAndEndAfter(
-                eq(userId), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(expectedBookings);
+        List<Booking> result = bookingService.findBookingsByStateAndOwnerId(userId, "WAITING", 25, 10);
 
-        List<Booking> result = bookingService.findCurrentBookingsByBookerId(userId);
+        assertEquals(bookings, result);
+    }
 
-        assertEquals(expectedBookings, result);
+    @Test
+    void findBookingsByStateAndBookerId_EmptyStateIsNotError() {
+        long userId = 1L;
+        when(bookingRepository.existsBookingsByBookerIdOrItemOwner(userId, userId)).thenReturn(true);
+        when(bookingRepository.findSlice(any(), any(Sort.class), eq(0), eq(10))).thenReturn(new SliceImpl<>(List.of()));
+
+        assertTrue(bookingService.findBookingsByStateAndBookerId(userId, "FUTURE", 0, 10).isEmpty());
+        assertThrows(ResourceNotFoundException.class, () -> {
+            bookingService.findBookingsByStateAndBookerId(userId, "ALL", 0, 10);
+        });
     }
 
     @Test
-    void testGetBookingByIdAndBookerOrOwner_BookerIdMatchesUserId() {
-        long bookingId = 1L;
+    void findBookingsByStateAndOwnerId_UnknownState() {
         long userId = 1L;
-        Booking booking = new Booking();
-        booking.setId(bookingId);
-        User user = new User();
-        user.setId(userId);
-        booking.setItem(new Item());
-        booking.setBooker(user);
+        when(bookingRepository.existsBookingsByBookerIdOrItemOwner(userId, userId)).thenReturn(true);
 
-        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
-        Booking result = bookingService.getBookingByIdAndBookerOrOwner(bookingId, userId);
+        assertThrows(ValidationException.class, () -> {
+            bookingService.findBookingsByStateAndOwnerId(userId, "UNSUPPORTED_STATUS", 0, 10);
+        });
+    }
 
-        assertEquals(booking, result);
+    @Test
+    void findBookingsByStateAndBookerId_InvalidCursor() {
+        long userId = 1L;
+        when(bookingRepository.existsBookingsByBookerIdOrItemOwner(userId, userId)).thenReturn(true);
+
+        assertThrows(ValidationException.class, () -> {
+            bookingService.findBookingsByStateAndBookerId(userId, "ALL", "not a cursor", 10);
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.model.BookingRole;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BookingSummaryCacheTest {
+
+    @Test
+    void getCachesPerRoleAndUser() {
+        BookingSummaryCache cache = new BookingSummaryCache(Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(BookingRole.OWNER, 1L, () -> summary(loads.incrementAndGet()));
+        cache.get(BookingRole.OWNER, 1L, () -> summary(loads.incrementAndGet()));
+        cache.get(BookingRole.BOOKER, 1L, () -> summary(loads.incrementAndGet()));
+        BookingSummaryDto other = cache.get(BookingRole.OWNER, 2L, () -> summary(loads.incrementAndGet()));
+
+        assertEquals(3, loads.get());
+        assertEquals(3, other.getAll());
+    }
+
+    @Test
+    void getWithoutTtlAlwaysLoads() {
+        BookingSummaryCache cache = new BookingSummaryCache(Duration.ZERO);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(BookingRole.OWNER, 1L, () -> summary(loads.incrementAndGet()));
+        cache.get(BookingRole.OWNER, 1L, () -> summary(loads.incrementAndGet()));
+
+        assertEquals(2, loads.get());
+    }
+
+    private BookingSummaryDto summary(long all) {
+        return BookingSummaryDto.builder().all(all).build();
+    }
+}
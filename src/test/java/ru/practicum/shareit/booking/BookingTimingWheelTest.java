@@ -0,0 +1,91 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookingTimingWheelTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    private final BookingTimingWheel wheel = new BookingTimingWheel(Duration.ofSeconds(1), NOW);
+
+    @Test
+    void expiresEntriesOnceTheirDeadlinePasses() {
+        wheel.add(1, NOW.plusSeconds(10));
+        wheel.add(2, NOW.plusSeconds(5));
+
+        assertTrue(wheel.advance(NOW.plusSeconds(4)).isEmpty());
+        assertEquals(List.of(2L), wheel.advance(NOW.plusSeconds(5)));
+        assertEquals(List.of(1L), wheel.advance(NOW.plusSeconds(30)));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void expiresPastDeadlinesOnNextAdvance() {
+        wheel.advance(NOW.plusMinutes(1));
+        wheel.add(1, NOW.minusDays(1));
+
+        assertEquals(List.of(1L), wheel.advance(NOW.plusMinutes(1)));
+    }
+
+    @Test
+    void roundsDeadlinesUpToWholeTicks() {
+        wheel.add(1, NOW.plusSeconds(2).plusNanos(1_000_000));
+
+        assertTrue(wheel.advance(NOW.plusSeconds(2).plusNanos(500_000_000)).isEmpty());
+        assertEquals(List.of(1L), wheel.advance(NOW.plusSeconds(3)));
+    }
+
+    @Test
+    void cascadesEntriesFromUpperLevels() {
+        wheel.add(1, NOW.plusHours(2));
+        wheel.add(2, NOW.plusDays(3));
+        wheel.add(3, NOW.plusDays(400));
+
+        assertTrue(wheel.advance(NOW.plusHours(2).minusSeconds(1)).isEmpty());
+        assertEquals(List.of(1L), wheel.advance(NOW.plusHours(2)));
+        assertTrue(wheel.advance(NOW.plusDays(3).minusSeconds(1)).isEmpty());
+        assertEquals(List.of(2L), wheel.advance(NOW.plusDays(3)));
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void matchesSortedDeadlines() {
+        Random random = new Random(42);
+        Map<Long, Long> deadlines = new HashMap<>();
+        for (long id = 0; id < 2_000; id++) {
+            long seconds = random.nextInt(3) == 0 ? random.nextInt(100) : random.nextInt(400_000);
+            deadlines.put(id, seconds);
+            wheel.add(id, NOW.plusSeconds(seconds));
+        }
+
+        long second = 0;
+        while (second < 400_000) {
+            second += 1 + random.nextInt(5_000);
+            long now = second;
+            List<Long> expected = new ArrayList<>();
+            deadlines.forEach((id, deadline) -> {
+                if (deadline <= now) {
+                    expected.add(id);
+                }
+            });
+            expected.forEach(deadlines::remove);
+
+            List<Long> expired = new ArrayList<>(wheel.advance(NOW.plusSeconds(now)));
+            expired.sort(null);
+            expected.sort(null);
+            assertEquals(expected, expired);
+        }
+        assertEquals(0, wheel.size());
+    }
+}
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.model.Comment;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.model.Item;
@@ -11,6 +12,7 @@ import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -59,4 +61,25 @@ class CommentRepositoryTest {
         assertEquals(comment.getItemId(), savedComment.getItemId());
         assertEquals(comment.getAuthorId(), savedComment.getAuthorId());
     }
+
+    @Test
+    void findCommentDtosByItemId() {
+        User author = new User();
+        author.setName("Author Name");
+        author.setEmail("author@example.com");
+        author = userRepository.save(author);
+        Comment comment = new Comment();
+        comment.setText("Test comment");
+        comment.setItemId(item.getId());
+        comment.setAuthorId(author.getId());
+        comment.setCreatedAt(LocalDateTime.now());
+        commentRepository.save(comment);
+
+        List<CommentDto> comments = commentRepository.findCommentDtosByItemId(item.getId());
+
+        assertEquals(1, comments.size());
+        assertEquals("Test comment", comments.get(0).getText());
+        assertEquals("Author Name", comments.get(0).getAuthorName());
+        assertEquals(comment.getId(), comments.get(0).getId());
+    }
 }
\ No newline at end of file
@@ -1,10 +1,15 @@
 package ru.practicum.shareit.exceptions;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.sql.SQLException;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
 
 class ErrorHandlerTest {
@@ -38,4 +43,39 @@ class ErrorHandlerTest {
 
         assertEquals(HttpStatus.CONFLICT, responseEntity.getStatusCode());
     }
+
+    @Test
+    public void testHandleDataIntegrityViolationException() {
+        DataIntegrityViolationException exception = new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", new SQLException(),
+                        "public.bookings_no_overlap"));
+
+        ErrorHandler errorHandler = new ErrorHandler();
+        ResponseEntity<ErrorMessage> responseEntity = errorHandler.handleDataIntegrityViolationException(exception);
+
+        assertEquals(HttpStatus.CONFLICT, responseEntity.getStatusCode());
+    }
+
+    @Test
+    public void testHandleDataIntegrityViolationExceptionFromJdbcBatch() {
+        DataIntegrityViolationException exception = new DataIntegrityViolationException("batch failed",
+                new SQLException("Check constraint violation: \"BOOKINGS_NO_OVERLAP: \""));
+
+        ErrorHandler errorHandler = new ErrorHandler();
+        ResponseEntity<ErrorMessage> responseEntity = errorHandler.handleDataIntegrityViolationException(exception);
+
+        assertEquals(HttpStatus.CONFLICT, responseEntity.getStatusCode());
+    }
+
+    @Test
+    public void testHandleDataIntegrityViolationExceptionRethrowsOtherViolations() {
+        DataIntegrityViolationException exception = new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", new SQLException(),
+                        "users_email_key"));
+
+        ErrorHandler errorHandler = new ErrorHandler();
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> errorHandler.handleDataIntegrityViolationException(exception));
+    }
 }
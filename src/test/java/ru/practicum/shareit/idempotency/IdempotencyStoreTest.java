@@ -0,0 +1,207 @@
+package ru.practicum.shareit.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import ru.practicum.shareit.exceptions.ConflictException;
+import ru.practicum.shareit.exceptions.ResourceNotFoundException;
+import ru.practicum.shareit.exceptions.ValidationException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdempotencyStoreTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void executeReplaysResponseForSameKey() {
+        IdempotencyStore store = store(Duration.ofMinutes(1), 10, null);
+
+        String first = store.execute("items", 1L, "key", "request", String.class, this::create);
+        String second = store.execute("items", 1L, "key", "request", String.class, this::create);
+
+        assertEquals("response-1", first);
+        assertEquals("response-1", second);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void executeWithoutKeyAlwaysRunsAction() {
+        IdempotencyStore store = store(Duration.ofMinutes(1), 10, null);
+
+        store.execute("items", 1L, null, "request", String.class, this::create);
+        store.execute("items", 1L, null, "request", String.class, this::create);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void executeScopesKeysByUserAndEndpoint() {
+        IdempotencyStore store = store(Duration.ofMinutes(1), 10, null);
+
+        store.execute("items", 1L, "key", "request", String.class, this::create);
+        store.execute("items", 2L, "key", "request", String.class, this::create);
+        store.execute("bookings", 1L, "key", "request", String.class, this::create);
+
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void executeWithDifferentRequestForSameKey() {
+        IdempotencyStore store = store(Duration.ofMinutes(1), 10, null);
+        store.execute("items", 1L, "key", "request", String.class, this::create);
+
+        assertThrows(ConflictException.class,
+                () -> store.execute("items", 1L, "key", "other request", String.class, this::create));
+    }
+
+    @Test
+    void executeWithInvalidKey() {
+        IdempotencyStore store = store(Duration.ofMinutes(1), 10, null);
+
+        assertThrows(ValidationException.class,
+                () -> store.execute("items", 1L, " ", "request", String.class, this::create));
+        assertThrows(ValidationException.class,
+                () -> store.execute("items", 1L, "k".repeat(256), "request", String.class, this::create));
+    }
+
+    @Test
+    void executeDoesNotRememberFailures() {
+        IdempotencyStore store = store(Duration.ofMinutes(1), 10, null);
+
+        assertThrows(ResourceNotFoundException.class, () -> store.execute("items", 1L, "key", "request",
+                String.class, () -> {
+                    throw new ResourceNotFoundException("User not found");
+                }));
+        String response = store.execute("items", 1L, "key", "request", String.class, this::create);
+
+        assertEquals("response-1", response);
+    }
+
+    @Test
+    void executeCoalescesConcurrentDuplicates() throws Exception {
+        IdempotencyStore store = store(Duration.ofMinutes(1), 10, null);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> owner = executor.submit(() -> store.execute("items", 1L, "key", "request", String.class,
+                    () -> {
+                        started.countDown();
+                        await(release);
+                        return create();
+                    }));
+            started.await(5, TimeUnit.SECONDS);
+            List<Future<String>> duplicates = List.of(
+                    executor.submit(() -> store.execute("items", 1L, "key", "request", String.class, this::create)),
+                    executor.submit(() -> store.execute("items", 1L, "key", "request", String.class, this::create)));
+            release.countDown();
+
+            assertEquals("response-1", owner.get(5, TimeUnit.SECONDS));
+            for (Future<String> duplicate : duplicates) {
+                assertEquals("response-1", duplicate.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void executeForgetsExpiredKeys() {
+        IdempotencyStore store = store(Duration.ZERO, 10, null);
+
+        store.execute("items", 1L, "key", "request", String.class, this::create);
+        String response = store.execute("items", 1L, "key", "request", String.class, this::create);
+
+        assertEquals("response-2", response);
+    }
+
+    @Test
+    void executeEvictsOldestKeysWhenFull() {
+        IdempotencyStore store = store(Duration.ofMinutes(1), 2, null);
+
+        store.execute("items", 1L, "first", "request", String.class, this::create);
+        store.execute("items", 1L, "second", "request", String.class, this::create);
+        store.execute("items", 1L, "third", "request", String.class, this::create);
+        store.execute("items", 1L, "third", "request", String.class, this::create);
+        String first = store.execute("items", 1L, "first", "request", String.class, this::create);
+
+        assertEquals("response-4", first);
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    void executeReplaysResponseFromRepository() {
+        InMemoryRepository repository = new InMemoryRepository();
+        store(Duration.ofMinutes(1), 10, repository).execute("items", 1L, "key", "request", String.class,
+                this::create);
+
+        IdempotencyStore restarted = store(Duration.ofMinutes(1), 10, repository);
+        String response = restarted.execute("items", 1L, "key", "request", String.class, this::create);
+
+        assertEquals("response-1", response);
+        assertEquals(1, calls.get());
+        assertThrows(ConflictException.class, () -> store(Duration.ofMinutes(1), 10, repository)
+                .execute("items", 1L, "key", "other request", String.class, this::create));
+    }
+
+    private IdempotencyStore store(Duration ttl, int maxEntries, IdempotencyRepository repository) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        if (repository != null) {
+            beanFactory.addBean("idempotencyRepository", repository);
+        }
+        ObjectProvider<IdempotencyRepository> provider = beanFactory.getBeanProvider(IdempotencyRepository.class);
+        return new IdempotencyStore(ttl, maxEntries, provider, objectMapper);
+    }
+
+    private String create() {
+        return "response-" + calls.incrementAndGet();
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class InMemoryRepository implements IdempotencyRepository {
+
+        private final Map<String, IdempotentResponse> responses = new HashMap<>();
+
+        @Override
+        public Optional<IdempotentResponse> findByKeyAndCreatedAfter(String key, LocalDateTime createdAfter) {
+            return Optional.ofNullable(responses.get(key));
+        }
+
+        @Override
+        public void save(String key, IdempotentResponse response, LocalDateTime created) {
+            responses.put(key, response);
+        }
+
+        @Override
+        public int deleteCreatedBefore(LocalDateTime createdBefore) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package ru.practicum.shareit.idempotency;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@JdbcTest
+class JdbcIdempotencyRepositoryTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private JdbcIdempotencyRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new JdbcIdempotencyRepository(jdbcTemplate);
+    }
+
+    @Test
+    void saveAndFind() {
+        LocalDateTime now = LocalDateTime.now();
+        repository.save("items:1:key", new IdempotentResponse("{\"name\":\"Drill\"}", "{\"id\":1}"), now);
+
+        assertEquals(new IdempotentResponse("{\"name\":\"Drill\"}", "{\"id\":1}"),
+                repository.findByKeyAndCreatedAfter("items:1:key", now.minusMinutes(1)).orElseThrow());
+        assertTrue(repository.findByKeyAndCreatedAfter("items:1:key", now.plusMinutes(1)).isEmpty());
+        assertTrue(repository.findByKeyAndCreatedAfter("items:2:key", now.minusMinutes(1)).isEmpty());
+    }
+
+    @Test
+    void saveReplacesExpiredKey() {
+        LocalDateTime now = LocalDateTime.now();
+        repository.save("items:1:key", new IdempotentResponse("old", "old"), now.minusDays(2));
+        repository.save("items:1:key", new IdempotentResponse("new", "new"), now);
+
+        assertEquals("new", repository.findByKeyAndCreatedAfter("items:1:key", now.minusDays(1))
+                .orElseThrow().getResponse());
+    }
+
+    @Test
+    void deleteCreatedBefore() {
+        LocalDateTime now = LocalDateTime.now();
+        repository.save("items:1:old", new IdempotentResponse("old", "old"), now.minusDays(2));
+        repository.save("items:1:new", new IdempotentResponse("new", "new"), now);
+
+        assertEquals(1, repository.deleteCreatedBefore(now.minusDays(1)));
+        assertTrue(repository.findByKeyAndCreatedAfter("items:1:old", now.minusDays(3)).isEmpty());
+        assertTrue(repository.findByKeyAndCreatedAfter("items:1:new", now.minusDays(1)).isPresent());
+    }
+}
@@ -0,0 +1,104 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ItemBookingPointersTest {
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @InjectMocks
+    private ItemBookingPointers itemBookingPointers;
+
+    private final User booker = User.builder().id(2L).build();
+
+    @Test
+    void refreshSetsLastAndNextBookings() {
+        LocalDateTime now = LocalDateTime.now();
+        Item item = Item.builder().id(1L).build();
+        Booking last = booking(10L, item, now.minusDays(1));
+        Booking next = booking(11L, item, now.plusDays(1));
+        when(bookingRepository.findLastAndNextBookingsByItemIds(anyCollection(), eq(BookingStatus.APPROVED), eq(now)))
+                .thenReturn(List.of(last, next));
+
+        itemBookingPointers.refresh(List.of(item), now);
+
+        assertEquals(last, item.getLastBooking());
+        assertEquals(next, item.getNextBooking());
+    }
+
+    @Test
+    void advanceMovesStartedNextBookingToLast() {
+        LocalDateTime now = LocalDateTime.now();
+        Item item = Item.builder().id(1L).build();
+        Booking started = booking(11L, item, now.minusMinutes(1));
+        item.setNextBooking(started);
+        when(itemRepository.findItemsByNextBookingStartBefore(any())).thenReturn(List.of(item));
+        when(bookingRepository.findLastAndNextBookingsByItemIds(anyCollection(), eq(BookingStatus.APPROVED), any()))
+                .thenReturn(List.of(started));
+
+        itemBookingPointers.advance();
+
+        assertEquals(started, item.getLastBooking());
+        assertNull(item.getNextBooking());
+    }
+
+    @Test
+    void advanceWithoutStartedBookingsDoesNothing() {
+        when(itemRepository.findItemsByNextBookingStartBefore(any())).thenReturn(List.of());
+
+        itemBookingPointers.advance();
+
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void refreshAfterCommitWaitsForCommitAndFlushesOnce() {
+        Item item = Item.builder().id(1L).build();
+        when(itemRepository.findAllById(List.of(1L))).thenReturn(List.of(item));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            itemBookingPointers.refreshAfterCommit(List.of(1L));
+            itemBookingPointers.flush();
+            verifyNoInteractions(itemRepository, bookingRepository);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        itemBookingPointers.flush();
+        itemBookingPointers.flush();
+
+        verify(itemRepository, times(1)).findAllById(List.of(1L));
+        verify(bookingRepository, times(1)).findLastAndNextBookingsByItemIds(anyCollection(), any(), any());
+    }
+
+    private Booking booking(long id, Item item, LocalDateTime start) {
+        return Booking.builder().id(id).item(item).booker(booker).start(start).end(start.plusHours(2))
+                .status(BookingStatus.APPROVED).build();
+    }
+}
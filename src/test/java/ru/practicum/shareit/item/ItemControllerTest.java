@@ -6,22 +6,32 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.idempotency.IdempotencyStore;
+import ru.practicum.shareit.item.dto.ItemCalendarDayDto;
+import ru.practicum.shareit.item.dto.ItemCalendarDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(controllers = ItemController.class)
+@Import(IdempotencyStore.class)
 class ItemControllerTest {
 
     @Autowired
@@ -119,6 +129,27 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$.available").value(true));
     }
 
+    @Test
+    void saveItemReplaysResponseForSameIdempotencyKey() throws Exception {
+        ItemDto itemDto = new ItemDto();
+        itemDto.setName("Test Item 1");
+        itemDto.setDescription("Test Description 1");
+        itemDto.setAvailable(true);
+        when(itemService.saveItem(anyLong(), any(ItemDto.class))).thenReturn(this.itemDto);
+
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(post("/items")
+                            .header("X-Sharer-User-Id", String.valueOf(userId))
+                            .header(IdempotencyStore.IDEMPOTENCY_KEY, "item-key")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(mapper.writeValueAsString(itemDto)))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.id").value(itemId));
+        }
+
+        verify(itemService, times(1)).saveItem(anyLong(), any(ItemDto.class));
+    }
+
     @Test
     void update() throws Exception {
         long userId = 1L;
@@ -186,7 +217,7 @@ class ItemControllerTest {
         item2.setAvailable(false);
         items.add(item2);
 
-        when(itemService.searchItems(searchText)).thenReturn(items);
+        when(itemService.searchItems(searchText, 0, 20)).thenReturn(items);
 
         mvc.perform(get("/items/search")
                         .param("text", searchText))
@@ -201,6 +232,75 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$[1].available").value(false));
     }
 
+    @Test
+    void searchItemsWithPage() throws Exception {
+        when(itemService.searchItems("drill", 40, 20)).thenReturn(List.of());
+
+        mvc.perform(get("/items/search")
+                        .param("text", "drill")
+                        .param("from", "40")
+                        .param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void findAvailableItems() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 10, 0);
+        LocalDateTime to = from.plusDays(2);
+        ItemDto available = new ItemDto();
+        available.setId(3L);
+        available.setName("Drill");
+        when(itemService.findAvailableItems("drill", from, to, 0, 20)).thenReturn(List.of(available));
+
+        mvc.perform(get("/items/available")
+                        .param("text", "drill")
+                        .param("from", "2030-01-01T10:00:00")
+                        .param("to", "2030-01-03T10:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(3))
+                .andExpect(jsonPath("$[0].name").value("Drill"));
+    }
+
+    @Test
+    void findAvailableItemsWithoutWindow() throws Exception {
+        mvc.perform(get("/items/available")
+                        .param("text", "drill"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void findAvailableItemsWithoutText() throws Exception {
+        mvc.perform(get("/items/available")
+                        .param("from", "2030-01-01T10:00:00")
+                        .param("to", "2030-01-03T10:00:00"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getItemCalendar() throws Exception {
+        YearMonth month = YearMonth.of(2030, 1);
+        when(itemService.getItemCalendar(userId, itemId, month)).thenReturn(new ItemCalendarDto(itemId, month,
+                List.of(new ItemCalendarDayDto(month.atDay(2), List.of(10, 11)))));
+
+        mvc.perform(get("/items/{itemId}/calendar", itemId)
+                        .header("X-Sharer-User-Id", String.valueOf(userId))
+                        .param("month", "2030-01"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.month").value("2030-01"))
+                .andExpect(jsonPath("$.days[0].date").value("2030-01-02"))
+                .andExpect(jsonPath("$.days[0].hours", hasSize(2)));
+    }
+
+    @Test
+    void getItemCalendarWithoutUser() throws Exception {
+        mvc.perform(get("/items/{itemId}/calendar", itemId)
+                        .param("month", "2030-01"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(itemService);
+    }
+
     @Test
     void addComment() throws Exception {
         long userId = 1L;
@@ -3,12 +3,17 @@ package ru.practicum.shareit.item;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemText;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.model.User;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -96,4 +101,57 @@ class ItemRepositoryTest {
         assertTrue(foundItems.stream().anyMatch(item -> item.getName().equalsIgnoreCase("Test Item 1")));
         assertTrue(foundItems.stream().anyMatch(item -> item.getDescription().equalsIgnoreCase("Test Description 1")));
     }
+
+    @Test
+    void findAvailableItemTexts() {
+        User owner = new User();
+        owner.setName("Owner Name");
+        owner.setEmail("john.doe@example.com");
+        long ownerId = userRepository.save(owner).getId();
+        Item available = Item.builder().name("Drill").description("Cordless").available(true).owner(ownerId).build();
+        Item unavailable = Item.builder().name("Saw").description("Sharp").available(false).owner(ownerId).build();
+        itemRepository.save(available);
+        itemRepository.save(unavailable);
+
+        List<ItemText> texts = itemRepository.findAvailableItemTexts();
+
+        assertEquals(List.of(new ItemText(available.getId(), "Drill", "Cordless")), texts);
+    }
+
+    @Test
+    void findItemDtosByIdIn() {
+        User owner = new User();
+        owner.setName("Owner Name");
+        owner.setEmail("john.doe@example.com");
+        long ownerId = userRepository.save(owner).getId();
+        Item drill = itemRepository.save(Item.builder().name("Drill").description("Cordless").available(true)
+                .owner(ownerId).build());
+        Item saw = itemRepository.save(Item.builder().name("Saw").description("Sharp").available(true)
+                .owner(ownerId).build());
+
+        List<ItemDto> items = itemRepository.findItemDtosByIdIn(List.of(drill.getId()));
+
+        assertEquals(List.of(new ItemDto(drill.getId(), "Drill", "Cordless", true, null)), items);
+        assertNull(items.get(0).getComments());
+        assertEquals(2, itemRepository.findItemDtosByIdIn(List.of(drill.getId(), saw.getId())).size());
+    }
+
+    @Test
+    void findByTextWithPage() {
+        User owner = new User();
+        owner.setName("Owner Name");
+        owner.setEmail("john.doe@example.com");
+        long ownerId = userRepository.save(owner).getId();
+        for (int i = 0; i < 5; i++) {
+            itemRepository.save(Item.builder().name("Drill " + i).description("Cordless").available(true)
+                    .owner(ownerId).build());
+        }
+
+        List<Item> items = itemRepository
+                .findByDescriptionContainingIgnoreCaseAndAvailableIsTrueOrNameContainingIgnoreCaseAndAvailableIsTrue(
+                        "drill", "drill", PageRequest.of(0, 3, Sort.by("id")));
+
+        assertEquals(List.of("Drill 0", "Drill 1", "Drill 2"),
+                items.stream().map(Item::getName).collect(Collectors.toList()));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jmx.export.naming.ObjectNamingStrategy;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// test contexts turn JMX off unless asked for explicitly
+@SpringBootTest(properties = "spring.jmx.enabled=true")
+class ItemSearchCacheJmxTest {
+
+    @Autowired
+    private ItemSearchCache cache;
+
+    @Autowired
+    private ObjectNamingStrategy namingStrategy;
+
+    @Autowired
+    private MBeanServer mBeanServer;
+
+    @Test
+    void statisticsAreReadableOverJmx() throws Exception {
+        ObjectName name = namingStrategy.getObjectName(cache, "itemSearchCache");
+        long hits = (long) mBeanServer.getAttribute(name, "HitCount");
+        long misses = (long) mBeanServer.getAttribute(name, "MissCount");
+
+        cache.get("jmx", 0, 20, () -> List.of(1L));
+        cache.get("jmx", 0, 20, () -> List.of(1L));
+
+        assertEquals(hits + 1, mBeanServer.getAttribute(name, "HitCount"));
+        assertEquals(misses + 1, mBeanServer.getAttribute(name, "MissCount"));
+        assertEquals(cache.getSize(), mBeanServer.getAttribute(name, "Size"));
+        assertEquals(cache.getWeight(), mBeanServer.getAttribute(name, "Weight"));
+    }
+}
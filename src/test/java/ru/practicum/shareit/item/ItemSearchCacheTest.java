@@ -0,0 +1,99 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.dto.ItemText;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ItemSearchCacheTest {
+
+    private final ItemSearchEngine searchEngine = (text, from, size) -> List.of();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void getCachesPerNormalisedTextAndPage() {
+        ItemSearchCache cache = new ItemSearchCache(searchEngine, 100);
+
+        assertEquals(List.of(1L), cache.get("drill", 0, 20, () -> load(1L)));
+        assertEquals(List.of(1L), cache.get("DRILL", 0, 20, () -> load(2L)));
+        assertEquals(List.of(3L), cache.get("drill", 20, 20, () -> load(3L)));
+        assertEquals(List.of(4L), cache.get(" drill", 0, 20, () -> load(4L)));
+
+        assertEquals(3, loads.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(0.25, cache.getHitRate());
+    }
+
+    @Test
+    void invalidateDropsOnlyResultsTheItemEntersOrLeaves() {
+        ItemSearchCache cache = new ItemSearchCache(searchEngine, 100);
+        cache.get("drill", 0, 20, () -> load(1L));
+        cache.get("saw", 0, 20, () -> load(2L));
+        cache.get("hammer", 0, 20, () -> load(3L));
+
+        cache.invalidate(new ItemText(1L, "Drill", "Cordless"), new ItemText(1L, "Saw", "Cordless"));
+
+        assertEquals(1, cache.getSize());
+        cache.get("hammer", 0, 20, () -> load(4L));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void invalidateWithUnchangedItem() {
+        ItemSearchCache cache = new ItemSearchCache(searchEngine, 100);
+        cache.get("drill", 0, 20, () -> load(1L));
+
+        cache.invalidate(new ItemText(1L, "Drill", "Cordless"), new ItemText(1L, "Drill", "Cordless"));
+
+        assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    void invalidateWhenItemBecomesUnavailable() {
+        ItemSearchCache cache = new ItemSearchCache(searchEngine, 100);
+        cache.get("ill", 0, 20, () -> load(1L));
+        cache.get("saw", 0, 20, () -> load(2L));
+
+        cache.invalidate(new ItemText(1L, "Drill", "Cordless"), null);
+
+        assertEquals(1, cache.getSize());
+        cache.get("saw", 0, 20, () -> load(3L));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void getEvictsLeastRecentlyUsedWhenOverweight() {
+        ItemSearchCache cache = new ItemSearchCache(searchEngine, 6);
+        cache.get("a", 0, 20, () -> load(1L, 2L));
+        cache.get("b", 0, 20, () -> load(3L));
+        cache.get("a", 0, 20, () -> load(4L));
+        cache.get("c", 0, 20, () -> load(5L));
+
+        assertEquals(2, cache.getSize());
+        assertEquals(5, cache.getWeight());
+        assertEquals(1, cache.getEvictionCount());
+        cache.get("b", 0, 20, () -> load(6L));
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void getWithoutWeightAlwaysLoads() {
+        ItemSearchCache cache = new ItemSearchCache(searchEngine, 0);
+
+        cache.get("drill", 0, 20, () -> load(1L));
+        cache.get("drill", 0, 20, () -> load(1L));
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.getSize());
+    }
+
+    private List<Long> load(Long... itemIds) {
+        loads.incrementAndGet();
+        return List.of(itemIds);
+    }
+}
@@ -0,0 +1,137 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ItemSearchIndexEquivalenceTest {
+
+    private static final String[] WORDS = {"Drill", "drills", "Hammer", "saw", "SAW", "Cordless", "18V", "ax",
+            "Дрель", "молоток", "пила", "x", "i", "wood-cutter", "50%", "under_score", "back\\slash", "  ", "!"};
+
+    private static final List<String> QUERIES = List.of("ill", "ILL", "drill", "dRiLl S", "s", "a", "ax", "x",
+            "18", "v", "ДРЕ", "дрель", "ло", "cutter", "d-c", "-", " ", "  ", "!", "%", "50%", "_", "r_s",
+            "\\", "k\\s", "screwdriver", "hammer saw", "зз");
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final Random random = new Random(42);
+
+    private long ownerId;
+
+    @BeforeEach
+    void setUp() {
+        User owner = new User();
+        owner.setName("Owner");
+        owner.setEmail("owner@example.com");
+        ownerId = userRepository.save(owner).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        itemRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void searchReturnsSameItemsAsLikeQuery() {
+        List<Item> items = saveRandomItems(300);
+        ItemSearchIndex index = new ItemSearchIndex(itemRepository);
+
+        assertSameResults(index, queries(items));
+    }
+
+    @Test
+    void searchReturnsSameItemsAsLikeQueryAfterUpdates() {
+        List<Item> items = saveRandomItems(200);
+        ItemSearchIndex index = new ItemSearchIndex(itemRepository);
+        index.load();
+
+        for (int i = 0; i < 100; i++) {
+            Item item = items.get(random.nextInt(items.size()));
+            switch (random.nextInt(3)) {
+                case 0:
+                    item.setName(randomText());
+                    break;
+                case 1:
+                    item.setDescription(randomText());
+                    break;
+                default:
+                    item.setAvailable(!item.getAvailable());
+            }
+            index.index(itemRepository.save(item));
+        }
+        items.addAll(saveRandomItems(50));
+        items.subList(items.size() - 50, items.size()).forEach(index::index);
+
+        assertSameResults(index, queries(items));
+    }
+
+    private void assertSameResults(ItemSearchIndex index, List<String> queries) {
+        LikeItemSearchEngine likeSearch = new LikeItemSearchEngine(itemRepository);
+        for (String query : queries) {
+            assertEquals(likeSearch.search(query), index.search(query), "Query: '" + query + "'");
+            assertEquals(likeSearch.search(query, 2, 5), index.search(query, 2, 5), "Page of '" + query + "'");
+        }
+    }
+
+    private List<String> queries(List<Item> items) {
+        List<String> queries = new ArrayList<>(QUERIES);
+        for (int i = 0; i < 200; i++) {
+            Item item = items.get(random.nextInt(items.size()));
+            String text = random.nextBoolean() ? item.getName() : item.getDescription();
+            int start = random.nextInt(text.length());
+            int end = start + 1 + random.nextInt(Math.min(12, text.length() - start));
+            queries.add(flipCase(text.substring(start, end)));
+        }
+        return queries;
+    }
+
+    private List<Item> saveRandomItems(int count) {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(itemRepository.save(Item.builder()
+                    .name(randomText())
+                    .description(randomText())
+                    .available(random.nextInt(4) > 0)
+                    .owner(ownerId)
+                    .build()));
+        }
+        return items;
+    }
+
+    private String randomText() {
+        StringBuilder text = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+        for (int words = random.nextInt(4); words > 0; words--) {
+            text.append(random.nextBoolean() ? " " : "").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    private String flipCase(String text) {
+        StringBuilder flipped = new StringBuilder();
+        for (char c : text.toCharArray()) {
+            flipped.append(random.nextBoolean() ? Character.toUpperCase(c) : Character.toLowerCase(c));
+        }
+        return flipped.toString();
+    }
+}
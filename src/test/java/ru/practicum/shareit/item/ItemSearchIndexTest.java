@@ -0,0 +1,96 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.item.dto.ItemText;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ItemSearchIndexTest {
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    @InjectMocks
+    private ItemSearchIndex index;
+
+    @Test
+    void searchFindsSubstringsCaseInsensitively() {
+        when(itemRepository.findAvailableItemTexts()).thenReturn(List.of(
+                new ItemText(1L, "Cordless Drill", "Drills wood and metal"),
+                new ItemText(2L, "Hammer", "Still heavy"),
+                new ItemText(3L, "Saw", "Sharp")));
+
+        assertEquals(List.of(1L, 2L), index.search("ILL"));
+        assertEquals(List.of(1L), index.search("less dr"));
+        assertEquals(List.of(), index.search("drill wood"));
+        assertEquals(List.of(), index.search("screwdriver"));
+        verify(itemRepository, times(1)).findAvailableItemTexts();
+    }
+
+    @Test
+    void searchWithShortText() {
+        when(itemRepository.findAvailableItemTexts()).thenReturn(List.of(
+                new ItemText(1L, "Drill", "Cordless"),
+                new ItemText(2L, "Ax", "Sharp"),
+                new ItemText(3L, "Saw", "X")));
+
+        assertEquals(List.of(2L, 3L), index.search("x"));
+        assertEquals(List.of(2L), index.search("AX"));
+        assertEquals(List.of(1L), index.search("ll"));
+        assertEquals(List.of(), index.search("q"));
+    }
+
+    @Test
+    void searchReturnsRequestedPage() {
+        when(itemRepository.findAvailableItemTexts()).thenReturn(List.of(
+                new ItemText(1L, "Drill", "Cordless"),
+                new ItemText(2L, "Saw", "Sharp"),
+                new ItemText(3L, "Hammer drill", "Heavy"),
+                new ItemText(4L, "Drill bits", "Set"),
+                new ItemText(5L, "Drill press", "Bench")));
+
+        assertEquals(List.of(3L, 4L), index.search("drill", 1, 2));
+        assertEquals(List.of(5L), index.search("drill", 3, 2));
+        assertEquals(List.of(), index.search("drill", 4, 2));
+    }
+
+    @Test
+    void searchWithEmptyText() {
+        assertEquals(List.of(), index.search(""));
+        verifyNoInteractions(itemRepository);
+    }
+
+    @Test
+    void indexAddsUpdatesAndRemovesItems() {
+        when(itemRepository.findAvailableItemTexts()).thenReturn(List.of(new ItemText(1L, "Drill", "Cordless")));
+        index.load();
+
+        index.index(Item.builder().id(2L).name("Hammer").description("Heavy").available(true).build());
+        assertEquals(List.of(2L), index.search("hammer"));
+
+        index.index(Item.builder().id(1L).name("Impact driver").description("Cordless").available(true).build());
+        assertEquals(List.of(), index.search("drill"));
+        assertEquals(List.of(1L), index.search("driver"));
+
+        index.index(Item.builder().id(1L).name("Impact driver").description("Cordless").available(false).build());
+        assertEquals(List.of(), index.search("cordless"));
+        assertEquals(List.of(2L), index.search("e"));
+    }
+
+    @Test
+    void gramsOfText() {
+        assertEquals(Set.of("DRI", "RIL", "ILL"), ItemSearchIndex.grams("DRILL"));
+        assertEquals(Set.of("AX"), ItemSearchIndex.grams("AX"));
+        assertEquals(Set.of(), ItemSearchIndex.grams(""));
+    }
+}
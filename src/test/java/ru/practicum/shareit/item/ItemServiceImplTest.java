@@ -4,24 +4,34 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.BookingAvailabilityIndex;
+import ru.practicum.shareit.booking.BookingCalendarIndex;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.comment.CommentRepository;
-import ru.practicum.shareit.comment.CommentService;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.model.Comment;
 import ru.practicum.shareit.exceptions.ResourceNotFoundException;
 import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.item.dto.ItemCalendarDayDto;
+import ru.practicum.shareit.item.dto.ItemCalendarDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemText;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.UserService;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -43,7 +53,19 @@ class ItemServiceImplTest {
     private CommentRepository commentRepository;
 
     @Mock
-    private CommentService commentService;
+    private ItemBookingPointers itemBookingPointers;
+
+    @Mock
+    private BookingAvailabilityIndex availabilityIndex;
+
+    @Mock
+    private BookingCalendarIndex calendarIndex;
+
+    @Mock
+    private ItemSearchEngine searchEngine;
+
+    @Spy
+    private ItemSearchCache searchCache = new ItemSearchCache(null, 0);
 
     @InjectMocks
     private ItemServiceImpl itemService;
@@ -71,6 +93,7 @@ class ItemServiceImplTest {
         ItemDto savedItemDto = itemService.saveItem(1L, itemDto);
         verify(itemRepository, times(1)).save(any(Item.class));
         verify(userService, times(1)).getUserById(1L);
+        verify(searchEngine).index(any(Item.class));
         assertNotNull(savedItemDto.getId());
     }
 
@@ -112,21 +135,13 @@ class ItemServiceImplTest {
     void testGetNameAuthor() {
         Item item = new Item();
         item.setId(1L);
-        Comment comment1 = new Comment();
-        comment1.setId(1L);
-        comment1.setAuthorId(1L);
-        comment1.setText("Comment 1");
-        Comment comment2 = new Comment();
-        comment2.setId(2L);
-        comment2.setAuthorId(2L);
-        comment2.setText("Comment 2");
-        List<Comment> comments = new ArrayList<>();
-        comments.add(comment1);
-        comments.add(comment2);
-        item.setComments(comments);
-        when(commentService.getNameAuthorByCommentId(1L)).thenReturn("Author 1");
-        when(commentService.getNameAuthorByCommentId(2L)).thenReturn("Author 2");
+        LocalDateTime now = LocalDateTime.now();
+        List<CommentDto> comments = new ArrayList<>();
+        comments.add(new CommentDto(1L, "Comment 1", "Author 1", now));
+        comments.add(new CommentDto(2L, "Comment 2", "Author 2", now));
+        when(commentRepository.findCommentDtosByItemId(1L)).thenReturn(comments);
         List<CommentDto> commentDtos = itemService.getNameAuthor(item);
+        verify(commentRepository, times(1)).findCommentDtosByItemId(1L);
         assertEquals(2, commentDtos.size());
         CommentDto commentDto1 = commentDtos.get(0);
         assertEquals("Comment 1", commentDto1.getText());
@@ -139,35 +154,42 @@ class ItemServiceImplTest {
     @Test
     void testSearchItemsWithEmptySearchText() {
         String emptySearchText = "";
-        List<ItemDto> result = itemService.searchItems(emptySearchText);
+        List<ItemDto> result = itemService.searchItems(emptySearchText, 0, 10);
         assertEquals(0, result.size());
     }
 
     @Test
     void testSearchItemsWithBlankSearchText() {
         String blankSearchText = "   ";
-        List<ItemDto> result = itemService.searchItems(blankSearchText);
+        List<ItemDto> result = itemService.searchItems(blankSearchText, 0, 10);
         assertEquals(0, result.size());
     }
 
+    @Test
+    void testSearchItemsWithInvalidPage() {
+        assertThrows(ValidationException.class, () -> itemService.searchItems("test", -1, 10));
+        assertThrows(ValidationException.class, () -> itemService.searchItems("test", 0, 0));
+    }
+
+    @Test
+    void testSearchItemsCapsPageSize() {
+        when(searchEngine.search("test", 20, ItemServiceImpl.MAX_SEARCH_SIZE)).thenReturn(List.of());
+
+        List<ItemDto> result = itemService.searchItems("test", 20, 10_000);
+
+        assertEquals(0, result.size());
+        verify(itemRepository, never()).findItemDtosByIdIn(any());
+    }
+
     @Test
     void testSearchItems() {
         String searchText = "test";
-        List<Item> items = new ArrayList<>();
-        Item item1 = new Item();
-        item1.setId(1L);
-        item1.setName("Test Item 1");
-        item1.setDescription("This is a test item 1");
-        item1.setAvailable(true);
-        items.add(item1);
-        Item item2 = new Item();
-        item2.setId(2L);
-        item2.setName("Another Test Item");
-        item2.setDescription("This is another test item 2");
-        item2.setAvailable(true);
-        items.add(item2);
-        when(itemRepository.findByDescriptionContainingIgnoreCaseAndAvailableIsTrueOrNameContainingIgnoreCaseAndAvailableIsTrue(searchText, searchText)).thenReturn(items);
-        List<ItemDto> result = itemService.searchItems(searchText);
+        List<ItemDto> items = new ArrayList<>();
+        items.add(new ItemDto(1L, "Test Item 1", "This is a test item 1", true, null));
+        items.add(new ItemDto(2L, "Another Test Item", "This is another test item 2", true, null));
+        when(searchEngine.search(searchText, 0, 10)).thenReturn(List.of(1L, 2L));
+        when(itemRepository.findItemDtosByIdIn(List.of(1L, 2L))).thenReturn(items);
+        List<ItemDto> result = itemService.searchItems(searchText, 0, 10);
         assertEquals(2, result.size());
         assertEquals("Test Item 1", result.get(0).getName());
         assertEquals("This is a test item 1", result.get(0).getDescription());
@@ -175,6 +197,84 @@ class ItemServiceImplTest {
         assertEquals("This is another test item 2", result.get(1).getDescription());
     }
 
+    @Test
+    void testSearchItemsKeepsSearchEngineOrder() {
+        String searchText = "drill";
+        ItemDto drill = new ItemDto(1L, "Drill", "Cordless", true, null);
+        ItemDto hammerDrill = new ItemDto(2L, "Hammer drill", "Drill", true, null);
+        ItemDto bits = new ItemDto(3L, "Bits", "For a drill", true, 5L);
+        when(searchEngine.search(searchText, 0, 10)).thenReturn(List.of(2L, 3L, 1L));
+        when(itemRepository.findItemDtosByIdIn(List.of(2L, 3L, 1L))).thenReturn(List.of(drill, hammerDrill, bits));
+
+        List<ItemDto> result = itemService.searchItems(searchText, 0, 10);
+
+        assertEquals(List.of(2L, 3L, 1L), result.stream().map(ItemDto::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testFindAvailableItems() {
+        String searchText = "drill";
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+        LocalDateTime to = from.plusDays(1);
+        ItemDto free = new ItemDto(3L, "Drill", "Cordless drill", true, null);
+        ItemDto later = new ItemDto(4L, "Drill press", "Bench", true, null);
+        when(searchEngine.search(searchText)).thenReturn(List.of(1L, 2L, 3L, 4L, 5L));
+        when(availabilityIndex.isAvailable(anyLong(), eq(from), eq(to))).thenAnswer(invocation
+                -> invocation.<Long>getArgument(0) != 2L);
+        when(itemRepository.findItemDtosByIdIn(List.of(3L, 4L))).thenReturn(List.of(later, free));
+
+        List<ItemDto> result = itemService.findAvailableItems(searchText, from, to, 1, 2);
+
+        assertEquals(List.of(3L, 4L), result.stream().map(ItemDto::getId).collect(Collectors.toList()));
+        verify(itemRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void testFindAvailableItemsInvalidWindow() {
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+
+        assertThrows(ValidationException.class, () -> itemService.findAvailableItems("drill", from, from, 0, 20));
+        assertThrows(ValidationException.class, () -> itemService.findAvailableItems("drill",
+                from.minusDays(3), from.minusDays(2), 0, 20));
+        assertThrows(ValidationException.class, () -> itemService.findAvailableItems("drill",
+                from, from.plusDays(1), -1, 20));
+        assertTrue(itemService.findAvailableItems(" ", from, from.plusDays(1), 0, 20).isEmpty());
+        verifyNoInteractions(itemRepository, availabilityIndex);
+    }
+
+    @Test
+    void testGetItemCalendar() {
+        YearMonth month = YearMonth.of(2030, 1);
+        BitSet hours = new BitSet();
+        hours.set(34, 36);
+        hours.set(30 * 24 + 23);
+        when(itemRepository.existsById(1L)).thenReturn(true);
+        when(calendarIndex.getMonth(1L, month)).thenReturn(hours);
+
+        ItemCalendarDto calendar = itemService.getItemCalendar(2L, 1L, month);
+        verify(userService).getUserById(2L);
+
+        assertEquals(month, calendar.getMonth());
+        assertEquals(List.of(new ItemCalendarDayDto(month.atDay(2), List.of(10, 11)),
+                new ItemCalendarDayDto(month.atDay(31), List.of(23))), calendar.getDays());
+    }
+
+    @Test
+    void testGetItemCalendarUserNotFound() {
+        when(userService.getUserById(2L)).thenThrow(new ResourceNotFoundException("User not found with ID: 2"));
+
+        assertThrows(ResourceNotFoundException.class, () -> itemService.getItemCalendar(2L, 1L, YearMonth.now()));
+        verifyNoInteractions(itemRepository, calendarIndex);
+    }
+
+    @Test
+    void testGetItemCalendarItemNotFound() {
+        when(itemRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class, () -> itemService.getItemCalendar(2L, 1L, YearMonth.now()));
+        verifyNoInteractions(calendarIndex);
+    }
+
     @Test
     void testAddCommentEmptyText() {
         long userId = 1L;
@@ -247,6 +347,63 @@ class ItemServiceImplTest {
         assertEquals("Item 2", result.get(1).getName());
     }
 
+    @Test
+    void findItemsByOwnerLoadsCommentsOfAllItemsAtOnce() {
+        long userId = 1L;
+        Item item1 = Item.builder().id(1L).name("Item 1").build();
+        Item item2 = Item.builder().id(2L).name("Item 2").build();
+        Comment comment = Comment.builder().id(5L).text("Works well").itemId(2L).authorId(3L).build();
+        when(itemRepository.findItemsByOwner(userId)).thenReturn(List.of(item1, item2));
+        when(commentRepository.findAllByItemIdInOrderById(List.of(1L, 2L))).thenReturn(List.of(comment));
+
+        List<ItemDto> result = itemService.findItemsByOwner(userId);
+
+        assertTrue(result.get(0).getComments().isEmpty());
+        assertEquals("Works well", result.get(1).getComments().get(0).getText());
+        verify(commentRepository, times(1)).findAllByItemIdInOrderById(any());
+    }
+
+    @Test
+    void findItemsByOwnerWithLastAndNextBookings() {
+        long userId = 1L;
+        User booker = new User();
+        booker.setId(2L);
+        LocalDateTime now = LocalDateTime.now();
+        Item item1 = new Item();
+        item1.setId(1L);
+        item1.setName("Item 1");
+        Item item2 = new Item();
+        item2.setId(2L);
+        item2.setName("Item 2");
+        item1.setLastBooking(new Booking(10L, now.minusDays(2), now.minusDays(1), item1, booker, BookingStatus.APPROVED, null, 0));
+        item1.setNextBooking(new Booking(11L, now.plusDays(1), now.plusDays(2), item1, booker, BookingStatus.APPROVED, null, 0));
+        item2.setNextBooking(new Booking(12L, now.plusDays(3), now.plusDays(4), item2, booker, BookingStatus.APPROVED, null, 0));
+        when(itemRepository.findItemsByOwner(userId)).thenReturn(List.of(item1, item2));
+        List<ItemDto> result = itemService.findItemsByOwner(userId);
+        verifyNoInteractions(itemBookingPointers, bookingRepository);
+        assertEquals(10L, result.get(0).getLastBooking().getId());
+        assertEquals(11L, result.get(0).getNextBooking().getId());
+        assertNull(result.get(1).getLastBooking());
+        assertEquals(12L, result.get(1).getNextBooking().getId());
+        assertEquals(2L, result.get(1).getNextBooking().getBookerId());
+    }
+
+    @Test
+    void findItemsByOwnerRefreshesStartedNextBooking() {
+        long userId = 1L;
+        User booker = new User();
+        booker.setId(2L);
+        LocalDateTime now = LocalDateTime.now();
+        Item item = new Item();
+        item.setId(1L);
+        item.setNextBooking(new Booking(11L, now.minusMinutes(1), now.plusDays(1), item, booker,
+                BookingStatus.APPROVED, null, 0));
+        when(itemRepository.findItemsByOwner(userId)).thenReturn(List.of(item));
+        itemService.findItemsByOwner(userId);
+        verify(itemBookingPointers).refreshAfterCommit(List.of(1L));
+        verify(itemBookingPointers).refresh(eq(List.of(item)), any(LocalDateTime.class));
+    }
+
     @Test
     void update() {
         long userId = 1L;
@@ -267,6 +424,7 @@ class ItemServiceImplTest {
         assertEquals(itemDto.getName(), updatedItemDto.getName());
         assertEquals(itemDto.getDescription(), updatedItemDto.getDescription());
         assertEquals(itemDto.getAvailable(), updatedItemDto.getAvailable());
+        verify(searchCache).invalidate(null, new ItemText(itemId, "Updated Name", "Updated Description"));
     }
 
     @Test
@@ -326,7 +484,7 @@ class ItemServiceImplTest {
     void getItemById_ItemNotFound_ThrowsResourceNotFoundException() {
         long userId = 1L;
         long itemId = 100L;
-        when(itemRepository.findById(itemId)).thenReturn(Optional.empty());
+        when(itemRepository.findItemWithBookingsById(itemId)).thenReturn(Optional.empty());
         assertThrows(ResourceNotFoundException.class, () -> itemService.getItemById(userId, itemId));
     }
 
@@ -341,7 +499,7 @@ class ItemServiceImplTest {
         item.setId(itemId);
         item.setOwner(userId);
         item.setComments(new ArrayList<>());
-        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(itemRepository.findItemWithBookingsById(itemId)).thenReturn(Optional.of(item));
         ItemDto itemDto = itemService.getItemById(userId, itemId);
         assertEquals(item.getDescription(), itemDto.getDescription());
     }
@@ -357,7 +515,7 @@ class ItemServiceImplTest {
         item.setId(itemId);
         item.setOwner(userId + 1);
         item.setComments(new ArrayList<>());
-        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(itemRepository.findItemWithBookingsById(itemId)).thenReturn(Optional.of(item));
         ItemDto itemDto = itemService.getItemById(userId, itemId);
         assertEquals(item.getDescription(), itemDto.getDescription());
         assertNull(itemDto.getLastBooking());
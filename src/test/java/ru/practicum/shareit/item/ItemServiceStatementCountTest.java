@@ -0,0 +1,97 @@
+package ru.practicum.shareit.item;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.comment.CommentRepository;
+import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ItemServiceStatementCountTest {
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<User> users = new ArrayList<>();
+
+    private final List<Item> items = new ArrayList<>();
+
+    private User author;
+
+    @BeforeEach
+    void setUp() {
+        author = save(User.builder().name("Author").email("author@statements.test").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Item item : items) {
+            commentRepository.deleteAll(commentRepository.findAllByItemId(item.getId()));
+            itemRepository.delete(item);
+        }
+        users.forEach(userRepository::delete);
+    }
+
+    @Test
+    void findItemsByOwnerRunsTheSameStatementsForOneAndManyItems() {
+        User single = ownerWithCommentedItems("single", 1);
+        User many = ownerWithCommentedItems("many", 5);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        List<ItemDto> singleItems = itemService.findItemsByOwner(single.getId());
+        long singleStatements = statistics.getPrepareStatementCount();
+        statistics.clear();
+        List<ItemDto> manyItems = itemService.findItemsByOwner(many.getId());
+        long manyStatements = statistics.getPrepareStatementCount();
+
+        assertEquals(1, singleItems.get(0).getComments().size());
+        assertEquals(5, manyItems.stream().filter(item -> item.getComments().size() == 1).count());
+        assertEquals(singleStatements, manyStatements);
+    }
+
+    private User ownerWithCommentedItems(String name, int count) {
+        User owner = save(User.builder().name(name).email(name + "@statements.test").build());
+        for (int i = 0; i < count; i++) {
+            Item item = itemRepository.save(Item.builder().name("Drill " + i).description("Cordless drill")
+                    .available(true).owner(owner.getId()).build());
+            items.add(item);
+            commentRepository.save(Comment.builder().text("Works well").itemId(item.getId())
+                    .authorId(author.getId()).createdAt(LocalDateTime.now()).build());
+        }
+        return owner;
+    }
+
+    private User save(User user) {
+        User saved = userRepository.save(user);
+        users.add(saved);
+        return saved;
+    }
+}
@@ -0,0 +1,55 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PostgresItemSearchEngineTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private PostgresItemSearchEngine searchEngine;
+
+    @Test
+    void searchRunsPrefixQueryForPage() {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq("cordless:* & dri:*"), eq(20), eq(40)))
+                .thenReturn(List.of(3L, 1L));
+
+        assertEquals(List.of(3L, 1L), searchEngine.search("Cordless DRI", 40, 20));
+    }
+
+    @Test
+    void searchWithoutWords() {
+        assertEquals(List.of(), searchEngine.search("&|!:*"));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void toTsQueryKeepsOnlyWords() {
+        assertEquals("drill:* & 18v:* & дрель:*", PostgresItemSearchEngine.toTsQuery("Drill (18V) & дрель | drill"));
+        assertEquals("", PostgresItemSearchEngine.toTsQuery("  "));
+    }
+
+    @Test
+    void matchesEveryWordAsPrefix() {
+        assertTrue(searchEngine.matches("DRI wood", "Cordless drill", "For wood and metal"));
+        assertFalse(searchEngine.matches("ill", "Cordless drill", "For wood and metal"));
+        assertFalse(searchEngine.matches("drill saw", "Cordless drill", null));
+        assertFalse(searchEngine.matches("--", "Cordless drill", null));
+    }
+}